@@ -0,0 +1,57 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+
+// Barrett reduction modulo n of k bits with the precomputed mu = [4 ^ k / n]: a product below n ^ 2 is reduced
+// with two multiplications and shifts instead of a division, setup costs a single division
+public final class BarrettReduction implements ModularArithmetic {
+    private final BigInteger modulo;
+    private final int k;
+    private final BigInteger mu;
+    // 4 ^ k, reduce() divides for inputs at or above it
+    private final BigInteger limit;
+
+    public BarrettReduction(BigInteger modulo) {
+        if (modulo.signum() <= 0) {
+            throw new IllegalArgumentException("Modulo must be positive: " + modulo);
+        }
+        this.modulo = modulo;
+        this.k = modulo.bitLength();
+        this.limit = BigInteger.ONE.shiftLeft(2 * k);
+        this.mu = limit.divide(modulo);
+    }
+
+    @Override
+    public BigInteger getModulo() {
+        return modulo;
+    }
+
+    // x mod n
+    public BigInteger reduce(BigInteger x) {
+        if (x.signum() < 0 || x.compareTo(limit) >= 0) {
+            return x.mod(modulo);
+        }
+
+        // q = [[x / 2 ^ (k - 1)] * mu / 2 ^ (k + 1)] is at most 2 below [x / n]
+        BigInteger q = x.shiftRight(k - 1).multiply(mu).shiftRight(k + 1);
+        BigInteger r = x.subtract(q.multiply(modulo));
+        while (r.compareTo(modulo) >= 0) {
+            r = r.subtract(modulo);
+        }
+        return r;
+    }
+
+    @Override
+    public BigInteger multiply(BigInteger a, BigInteger b) {
+        return reduce(reduce(a).multiply(reduce(b)));
+    }
+
+    @Override
+    public BigInteger pow(BigInteger number, BigInteger power) {
+        if (power.signum() < 0) {
+            throw new IllegalArgumentException("Negative power: " + power);
+        }
+        return RepeatedSquaringModularExponentiation.powSlidingWindow(reduce(number), power, modulo,
+                (a, b) -> reduce(a.multiply(b)));
+    }
+}
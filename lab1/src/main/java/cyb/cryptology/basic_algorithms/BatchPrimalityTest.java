@@ -0,0 +1,170 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+// Primality of many candidates at once. Candidates are screened in chunks of CHUNK_SIZE. The cheap trial
+// division by the primes below TrialDivision.BOUND removes most composites, then the product P of the primes
+// below SMALL_FACTOR_BOUND is reduced modulo every remaining candidate of the chunk by a remainder tree over
+// their product tree, and a candidate with gcd(P mod n, n) > 1 has a small factor. The survivors get one
+// Fermat round to base 2 and only the ones passing it get the Miller-Rabin rounds. Chunks and candidates
+// are tasks on the common ForkJoinPool.
+public abstract class BatchPrimalityTest {
+    private static final int SMALL_FACTOR_BOUND = 1 << 16;
+    private static final int CHUNK_SIZE = 256;
+
+    // product of the primes below SMALL_FACTOR_BOUND
+    private static final BigInteger smallPrimesProduct;
+
+    static {
+        int[] primes = TrialDivision.sieve(SMALL_FACTOR_BOUND);
+        BigInteger[] factors = new BigInteger[primes.length];
+        for (int i = 0; i < primes.length; i++) {
+            factors[i] = BigInteger.valueOf(primes[i]);
+        }
+        List<BigInteger[]> tree = productTree(factors);
+        smallPrimesProduct = tree.get(tree.size() - 1)[0];
+    }
+
+    // bit i is set if candidates[i] is prime, numOfIterations is passed on to MillerRabinPrimalityTest
+    public static BitSet isPrime(BigInteger[] candidates, int numOfIterations) {
+        boolean[] prime = new boolean[candidates.length];
+        if (candidates.length > 0) {
+            ForkJoinPool.commonPool().invoke(new Screen(candidates, prime, 0, candidates.length, numOfIterations));
+        }
+
+        BitSet result = new BitSet(candidates.length);
+        for (int i = 0; i < prime.length; i++) {
+            if (prime[i]) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    // bit i is set if the i-th candidate of the stream is prime
+    public static BitSet isPrime(Stream<BigInteger> candidates, int numOfIterations) {
+        return isPrime(candidates.toArray(BigInteger[]::new), numOfIterations);
+    }
+
+    // levels of the tree from the numbers up to their product, every node is the product of its two children
+    private static List<BigInteger[]> productTree(BigInteger[] numbers) {
+        List<BigInteger[]> tree = new ArrayList<>();
+        BigInteger[] level = numbers;
+        tree.add(level);
+        while (level.length > 1) {
+            BigInteger[] parents = new BigInteger[(level.length + 1) / 2];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = 2 * i + 1 < level.length ? level[2 * i].multiply(level[2 * i + 1]) : level[2 * i];
+            }
+            level = parents;
+            tree.add(level);
+        }
+        return tree;
+    }
+
+    // x mod numbers[i] for every i, reducing x down the product tree of numbers
+    private static BigInteger[] remainders(BigInteger x, BigInteger[] numbers) {
+        List<BigInteger[]> tree = productTree(numbers);
+        BigInteger[] remainders = {x.mod(tree.get(tree.size() - 1)[0])};
+        for (int depth = tree.size() - 2; depth >= 0; depth--) {
+            BigInteger[] level = tree.get(depth);
+            BigInteger[] next = new BigInteger[level.length];
+            for (int i = 0; i < level.length; i++) {
+                next[i] = remainders[i / 2].mod(level[i]);
+            }
+            remainders = next;
+        }
+        return remainders;
+    }
+
+    // a ^ (n - 1) = 1 (mod n) for a = 2
+    private static boolean passesFermat(BigInteger number) {
+        ModularArithmetic arithmetic = ModularArithmeticFactory.create(number, number.bitLength(), 0);
+        return arithmetic.pow(BigInteger.TWO, number.subtract(BigInteger.ONE)).equals(BigInteger.ONE);
+    }
+
+    // candidates [from, to), split into chunks
+    private static final class Screen extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final BigInteger[] candidates;
+        private final boolean[] prime;
+        private final int from;
+        private final int to;
+        private final int numOfIterations;
+
+        Screen(BigInteger[] candidates, boolean[] prime, int from, int to, int numOfIterations) {
+            this.candidates = candidates;
+            this.prime = prime;
+            this.from = from;
+            this.to = to;
+            this.numOfIterations = numOfIterations;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Screen(candidates, prime, from, middle, numOfIterations),
+                        new Screen(candidates, prime, middle, to, numOfIterations));
+                return;
+            }
+
+            // small candidates would divide the product themselves, they are tested one by one
+            List<Integer> large = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (candidates[i].signum() <= 0) {
+                    prime[i] = false;
+                } else if (candidates[i].bitLength() <= Integer.SIZE) {
+                    prime[i] = MillerRabinPrimalityTest.isPrime(candidates[i], numOfIterations);
+                } else if (TrialDivision.smallestFactor(candidates[i]) == 0) {
+                    large.add(i);
+                }
+            }
+            if (large.isEmpty()) {
+                return;
+            }
+
+            BigInteger[] numbers = new BigInteger[large.size()];
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = candidates[large.get(i)];
+            }
+            BigInteger[] remainders = remainders(smallPrimesProduct, numbers);
+
+            List<Rounds> rounds = new ArrayList<>();
+            for (int i = 0; i < numbers.length; i++) {
+                // gcd(P mod n, n) = gcd(P, n)
+                if (remainders[i].gcd(numbers[i]).equals(BigInteger.ONE)) {
+                    rounds.add(new Rounds(candidates[large.get(i)], prime, large.get(i), numOfIterations));
+                }
+            }
+            invokeAll(rounds);
+        }
+    }
+
+    // Fermat round, then Miller-Rabin rounds for one candidate without small factors
+    private static final class Rounds extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final BigInteger candidate;
+        private final boolean[] prime;
+        private final int index;
+        private final int numOfIterations;
+
+        Rounds(BigInteger candidate, boolean[] prime, int index, int numOfIterations) {
+            this.candidate = candidate;
+            this.prime = prime;
+            this.index = index;
+            this.numOfIterations = numOfIterations;
+        }
+
+        @Override
+        protected void compute() {
+            prime[index] = passesFermat(candidate) && MillerRabinPrimalityTest.passesRounds(candidate, numOfIterations);
+        }
+    }
+}
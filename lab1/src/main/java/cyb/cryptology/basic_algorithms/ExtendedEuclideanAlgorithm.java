@@ -3,14 +3,150 @@ package cyb.cryptology.basic_algorithms;
 import java.math.BigInteger;
 
 public abstract class ExtendedEuclideanAlgorithm {
+    // leading bits of a and b that lehmerGcd() runs the Euclidean algorithm on in longs
+    private static final int LEHMER_BITS = 62;
 
+    // gcd = x * a + y * b, iterative with a single division per step
     public static EuclideanResult gcd(BigInteger a, BigInteger b) {
-        if (b.equals(BigInteger.ZERO)) {
-            return new EuclideanResult(a, BigInteger.ONE, BigInteger.ZERO);
+        BigInteger x0 = BigInteger.ONE;
+        BigInteger x1 = BigInteger.ZERO;
+        BigInteger y0 = BigInteger.ZERO;
+        BigInteger y1 = BigInteger.ONE;
+
+        while (b.signum() != 0) {
+            BigInteger[] quotientAndRemainder = a.divideAndRemainder(b);
+            BigInteger q = quotientAndRemainder[0];
+            a = b;
+            b = quotientAndRemainder[1];
+
+            BigInteger x = x0.subtract(q.multiply(x1));
+            x0 = x1;
+            x1 = x;
+            BigInteger y = y0.subtract(q.multiply(y1));
+            y0 = y1;
+            y1 = y;
+        }
+
+        return new EuclideanResult(a, x0, y0);
+    }
+
+    // the same result as gcd() for non-negative a and b by the algorithm of Lehmer: the quotients are found
+    // from the leading LEHMER_BITS bits in longs for as long as they are certain, and then applied to a and b
+    // at once as a 2 x 2 matrix. only the cofactor of a is kept, y is recovered by one division at the end
+    public static EuclideanResult lehmerGcd(BigInteger a, BigInteger b) {
+        if (a.signum() < 0 || b.signum() < 0) {
+            throw new IllegalArgumentException("Lehmer's algorithm needs non-negative numbers: " + a + ", " + b);
+        }
+
+        BigInteger originalA = a;
+        BigInteger originalB = b;
+        // a = x0 * originalA + ... and b = x1 * originalA + ...
+        BigInteger x0 = BigInteger.ONE;
+        BigInteger x1 = BigInteger.ZERO;
+
+        while (b.bitLength() > LEHMER_BITS) {
+            int shift = Math.max(a.bitLength(), b.bitLength()) - LEHMER_BITS;
+            long aHead = a.shiftRight(shift).longValue();
+            long bHead = b.shiftRight(shift).longValue();
+
+            // Knuth's algorithm L: a step is taken only while both ends of the quotient interval agree
+            long matrixA = 1;
+            long matrixB = 0;
+            long matrixC = 0;
+            long matrixD = 1;
+            while (bHead + matrixC != 0 && bHead + matrixD != 0) {
+                long q = (aHead + matrixA) / (bHead + matrixC);
+                if (q != (aHead + matrixB) / (bHead + matrixD)) {
+                    break;
+                }
+
+                long t = matrixA - q * matrixC;
+                matrixA = matrixC;
+                matrixC = t;
+                t = matrixB - q * matrixD;
+                matrixB = matrixD;
+                matrixD = t;
+                t = aHead - q * bHead;
+                aHead = bHead;
+                bHead = t;
+            }
+
+            if (matrixB == 0) {
+                // no certain quotient, one step on the full numbers
+                BigInteger[] quotientAndRemainder = a.divideAndRemainder(b);
+                a = b;
+                b = quotientAndRemainder[1];
+                BigInteger x = x0.subtract(quotientAndRemainder[0].multiply(x1));
+                x0 = x1;
+                x1 = x;
+            } else {
+                BigInteger nextA = combine(matrixA, a, matrixB, b);
+                b = combine(matrixC, a, matrixD, b);
+                a = nextA;
+                BigInteger x = combine(matrixC, x0, matrixD, x1);
+                x0 = combine(matrixA, x0, matrixB, x1);
+                x1 = x;
+            }
+        }
+
+        // the last steps, once b fits in a long
+        while (b.signum() != 0) {
+            BigInteger[] quotientAndRemainder = a.divideAndRemainder(b);
+            a = b;
+            b = quotientAndRemainder[1];
+            BigInteger x = x0.subtract(quotientAndRemainder[0].multiply(x1));
+            x0 = x1;
+            x1 = x;
         }
-        EuclideanResult current = gcd(b, a.mod(b));
 
-        return new EuclideanResult(current.getGcd(), current.getY(),
-                current.getX().subtract(a.divide(b).multiply(current.getY())));
+        // gcd = x * originalA + y * originalB
+        BigInteger y = originalB.signum() == 0 ? BigInteger.ZERO
+                : a.subtract(x0.multiply(originalA)).divide(originalB);
+        return new EuclideanResult(a, x0, y);
+    }
+
+    // a ^ (-1) mod modulo
+    public static BigInteger modInverse(BigInteger a, BigInteger modulo) {
+        if (modulo.signum() <= 0) {
+            throw new ArithmeticException("Modulo must be positive: " + modulo);
+        }
+
+        EuclideanResult result = lehmerGcd(a.mod(modulo), modulo);
+        if (!result.getGcd().equals(BigInteger.ONE)) {
+            throw new ArithmeticException(a + " is not invertible modulo " + modulo);
+        }
+        return result.getX().mod(modulo);
+    }
+
+    // inverses of all numbers modulo by the trick of Montgomery: one inversion of the product of all numbers
+    // and 3 (n - 1) modular products, throws if any of the numbers is not invertible
+    public static BigInteger[] modInverse(BigInteger[] numbers, BigInteger modulo) {
+        int n = numbers.length;
+        BigInteger[] inverses = new BigInteger[n];
+        if (n == 0) {
+            return inverses;
+        }
+
+        ModularArithmetic arithmetic = ModularArithmeticFactory.create(modulo, 0, 3L * n);
+        // inverses[i] holds numbers[0] * ... * numbers[i] until it is replaced by the inverse of numbers[i]
+        inverses[0] = numbers[0].mod(modulo);
+        for (int i = 1; i < n; i++) {
+            inverses[i] = arithmetic.multiply(inverses[i - 1], numbers[i]);
+        }
+
+        // inverse of numbers[0] * ... * numbers[i], walking down
+        BigInteger inverse = modInverse(inverses[n - 1], modulo);
+        for (int i = n - 1; i > 0; i--) {
+            BigInteger next = arithmetic.multiply(inverse, numbers[i]);
+            inverses[i] = arithmetic.multiply(inverse, inverses[i - 1]);
+            inverse = next;
+        }
+        inverses[0] = inverse;
+        return inverses;
+    }
+
+    // p * u + q * v
+    private static BigInteger combine(long p, BigInteger u, long q, BigInteger v) {
+        return BigInteger.valueOf(p).multiply(u).add(BigInteger.valueOf(q).multiply(v));
     }
 }
@@ -0,0 +1,212 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Exponentiation of one fixed base modulo an odd modulo by the Brickell-Gordon-McCurley-Wilson method.
+// The table base ^ (2 ^ (window * i)) in Montgomery form is built once for powers of up to maxPowerBits bits,
+// after that every pow() costs at most (maxPowerBits / window) + 2 ^ window products and no squarings.
+// Longer powers fall back to the sliding window. Instances are immutable and can be shared between threads.
+public final class FixedBaseExponentiation {
+    private static final int DEFAULT_CACHE_CAPACITY = 16;
+    private static final int MAX_WINDOW = 16;
+
+    // most recently used instances for (base mod modulo, modulo), tables for the full modulo length
+    private static final LinkedHashMap<List<BigInteger>, FixedBaseExponentiation> cache =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<BigInteger>, FixedBaseExponentiation> eldest) {
+                    return size() > cacheCapacity;
+                }
+            };
+    private static int cacheCapacity = DEFAULT_CACHE_CAPACITY;
+
+    private final BigInteger base;
+    private final MontgomeryMultiplier multiplier;
+    private final int maxPowerBits;
+    private final int window;
+    // table[i] = base ^ (2 ^ (window * i)) in Montgomery form
+    private final long[][] table;
+
+    public FixedBaseExponentiation(BigInteger base, BigInteger modulo, int maxPowerBits) {
+        this(base, modulo, maxPowerBits, windowSize(maxPowerBits));
+    }
+
+    public FixedBaseExponentiation(BigInteger base, BigInteger modulo, int maxPowerBits, int window) {
+        if (maxPowerBits <= 0) {
+            throw new IllegalArgumentException("Power length must be positive: " + maxPowerBits);
+        }
+        if (window < 1 || window > MAX_WINDOW) {
+            throw new IllegalArgumentException("Window must be from 1 to " + MAX_WINDOW + ": " + window);
+        }
+
+        this.multiplier = new MontgomeryMultiplier(modulo);
+        this.base = base.mod(modulo);
+        this.maxPowerBits = maxPowerBits;
+        this.window = window;
+        this.table = new long[(maxPowerBits + window - 1) / window][];
+
+        long[] current = multiplier.newElement();
+        long[] next = multiplier.newElement();
+        table[0] = multiplier.newElement();
+        multiplier.toMontgomery(this.base, table[0]);
+        for (int i = 1; i < table.length; i++) {
+            System.arraycopy(table[i - 1], 0, current, 0, current.length);
+            for (int j = 0; j < window; j++) {
+                multiplier.multiply(current, current, next);
+                long[] swap = current;
+                current = next;
+                next = swap;
+            }
+            table[i] = current.clone();
+        }
+    }
+
+    // cached instance with tables for powers as long as the modulo, built on first use
+    public static FixedBaseExponentiation of(BigInteger base, BigInteger modulo) {
+        List<BigInteger> key = List.of(base.mod(modulo), modulo);
+        synchronized (cache) {
+            FixedBaseExponentiation cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // built outside the lock, two threads may race to build the same table and one of them is kept
+        FixedBaseExponentiation created = new FixedBaseExponentiation(base, modulo, modulo.bitLength());
+        synchronized (cache) {
+            FixedBaseExponentiation cached = cache.putIfAbsent(key, created);
+            return cached != null ? cached : created;
+        }
+    }
+
+    public static int getCacheCapacity() {
+        synchronized (cache) {
+            return cacheCapacity;
+        }
+    }
+
+    // the least recently used instances beyond capacity are dropped
+    public static void setCacheCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative: " + capacity);
+        }
+        synchronized (cache) {
+            cacheCapacity = capacity;
+            while (cache.size() > capacity) {
+                cache.remove(cache.keySet().iterator().next());
+            }
+        }
+    }
+
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public BigInteger getBase() {
+        return base;
+    }
+
+    public BigInteger getModulo() {
+        return multiplier.getModulo();
+    }
+
+    public int getMaxPowerBits() {
+        return maxPowerBits;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getTableSize() {
+        return table.length;
+    }
+
+    // (base ^ power) mod modulo
+    public BigInteger pow(BigInteger power) {
+        if (power.signum() < 0) {
+            throw new IllegalArgumentException("Negative power: " + power);
+        }
+        if (power.bitLength() > maxPowerBits) {
+            return multiplier.pow(base, power);
+        }
+
+        // digits of power in base 2 ^ window, bucketed by value: order[start[d] ... start[d + 1]) have digit d
+        int digits = (power.bitLength() + window - 1) / window;
+        int[] digit = new int[digits];
+        int[] start = new int[(1 << window) + 1];
+        for (int i = 0; i < digits; i++) {
+            for (int j = window - 1; j >= 0; j--) {
+                digit[i] = digit[i] << 1 | (power.testBit(i * window + j) ? 1 : 0);
+            }
+            start[digit[i] + 1]++;
+        }
+        for (int d = 0; d < 1 << window; d++) {
+            start[d + 1] += start[d];
+        }
+        int[] order = new int[digits];
+        int[] filled = start.clone();
+        for (int i = 0; i < digits; i++) {
+            order[filled[digit[i]]++] = i;
+        }
+
+        // b collects table[i] of every digit >= d, a multiplies the b of every d, so table[i] enters digit[i] times
+        long[] a = multiplier.newElement();
+        long[] b = multiplier.newElement();
+        long[] next = multiplier.newElement();
+        boolean aIsOne = true;
+        boolean bIsOne = true;
+
+        for (int d = (1 << window) - 1; d >= 1; d--) {
+            for (int k = start[d]; k < start[d + 1]; k++) {
+                long[] entry = table[order[k]];
+                if (bIsOne) {
+                    System.arraycopy(entry, 0, b, 0, b.length);
+                    bIsOne = false;
+                } else {
+                    multiplier.multiply(b, entry, next);
+                    long[] swap = b;
+                    b = next;
+                    next = swap;
+                }
+            }
+
+            if (bIsOne) {
+                continue;
+            }
+            if (aIsOne) {
+                System.arraycopy(b, 0, a, 0, a.length);
+                aIsOne = false;
+            } else {
+                multiplier.multiply(a, b, next);
+                long[] swap = a;
+                a = next;
+                next = swap;
+            }
+        }
+
+        if (aIsOne) {
+            multiplier.one(a);
+        }
+        return multiplier.fromMontgomery(a);
+    }
+
+    // window minimizing table length + 2 ^ window, the products of one pow()
+    static int windowSize(int maxPowerBits) {
+        int best = 1;
+        long bestCost = Long.MAX_VALUE;
+        for (int window = 1; window <= MAX_WINDOW; window++) {
+            long cost = (maxPowerBits + window - 1) / window + (1L << window);
+            if (cost < bestCost) {
+                best = window;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+}
@@ -3,7 +3,8 @@ package cyb.cryptology.basic_algorithms;
 import java.math.BigInteger;
 
 public abstract class KaratsubaAlgorithm {
-    private static final int LIMIT = 10;
+    // below this many bits the BigInteger product is faster than another level of recursion
+    private static final int LIMIT = 1024;
 
     public static BigInteger multiply(BigInteger left, BigInteger right) {
         int length = Math.max(left.bitLength(), right.bitLength());
@@ -1,56 +1,198 @@
 package cyb.cryptology.basic_algorithms;
 
 import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class MillerRabinPrimalityTest {
+    // after the first round the rest of the rounds for numbers of this many bits run on the common ForkJoinPool
+    private static final int PARALLEL_MIN_BITS = 512;
+    private static final BigInteger LONG_LIMIT = BigInteger.ONE.shiftLeft(Long.SIZE);
+    // for n below BASE_LIMITS[i] the first BASE_COUNTS[i] primes are a deterministic set of bases,
+    // the first 12 primes are enough for every n below 2 ^ 64
+    private static final long[] BASE_LIMITS = {2047L, 1373653L, 25326001L, 3215031751L, 2152302898747L,
+            3474749660383L, 341550071728321L, 3825123056546413051L};
+    private static final int[] BASE_COUNTS = {1, 2, 3, 4, 5, 6, 7, 9};
+    private static final int[] DETERMINISTIC_BASES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
 
-    private static boolean witness(BigInteger a, BigInteger modulo) {
-        // even number is not prime
-        if (!modulo.testBit(0)) {
-            return true;
+    // n - 1 = 2 ^ t * u, where u is odd, is computed once per number and shared by all rounds.
+    // a is a witness of compositeness unless a ^ u = 1 or a ^ (2 ^ i * u) = -1 for some i < t.
+    // the squarings stop early once another round has found a witness
+    private static boolean witness(BigInteger a, BigInteger modulo, BigInteger u, int powerOfTwo,
+                                   ModularArithmetic arithmetic, AtomicBoolean composite) {
+        BigInteger minusOne = modulo.subtract(BigInteger.ONE);
+        BigInteger prev = arithmetic.pow(a, u);
+
+        for (int i = 0; i < powerOfTwo; i++) {
+            // 1 and -1 square to 1, so the rest of the sequence ends in 1 as for a prime
+            if (prev.equals(BigInteger.ONE) || prev.equals(minusOne)) {
+                return false;
+            }
+            if (composite.get()) {
+                return true;
+            }
+
+            BigInteger current = arithmetic.multiply(prev, prev);
+            // if non-trivial square root of 1 is found then n is not prime
+            if (current.equals(BigInteger.ONE)) {
+                return true;
+            }
+            prev = current;
         }
 
-        BigInteger power = modulo.subtract(BigInteger.ONE);
-        int powerOfTwo = 0;
+        // a ^ (n - 1) != 1
+        return true;
+    }
 
-        for (; powerOfTwo < power.bitLength(); powerOfTwo++) {
-            if (power.testBit(powerOfTwo)) {
-                break;
+    // the same for odd n below 2 ^ 32, where products fit in an unsigned long
+    private static boolean witness(long a, long modulo, long u, int powerOfTwo) {
+        long prev = 1;
+        for (long base = a % modulo, power = u; power > 0; power >>>= 1) {
+            if ((power & 1) != 0) {
+                prev = Long.remainderUnsigned(prev * base, modulo);
             }
+            base = Long.remainderUnsigned(base * base, modulo);
         }
-        // n - 1 = 2 ^ t * u, where u is odd
-        BigInteger u = power.shiftRight(powerOfTwo);
-        BigInteger prev = RepeatedSquaringModularExponentiation.pow(a, u, modulo);
-        BigInteger current = BigInteger.ONE;
 
         for (int i = 0; i < powerOfTwo; i++) {
-            current = prev.pow(2).mod(modulo);
-            // if non-trivial square root of 1 is found then n is not prime
-            if (current.equals(BigInteger.ONE) && !prev.equals(BigInteger.ONE) && !prev.equals(power)) {
+            if (prev == 1 || prev == modulo - 1) {
+                return false;
+            }
+            prev = Long.remainderUnsigned(prev * prev, modulo);
+            if (prev == 1) {
                 return true;
             }
         }
-
-        return !current.equals(BigInteger.ONE);
+        return true;
     }
 
+    // numbers below 2 ^ 64 are decided exactly with deterministic bases and numOfIterations is ignored,
+    // larger ones pass numOfIterations rounds with random bases. small factors are found by trial division first
     public static boolean isPrime(BigInteger number, int numOfIterations) {
-        if (number.equals(BigInteger.ONE)) {
+        if (number.compareTo(BigInteger.TWO) < 0) {
             return false;
         }
-        if (number.equals(BigInteger.TWO)) {
+
+        int factor = TrialDivision.smallestFactor(number);
+        if (factor != 0) {
+            return number.equals(BigInteger.valueOf(factor));
+        }
+        if (number.compareTo(TrialDivision.PRIME_LIMIT) < 0) {
             return true;
         }
+        return passesRounds(number, numOfIterations);
+    }
 
-        BigInteger testNumber;
+    // the rounds of isPrime() without trial division, number must be odd and greater than 37
+    static boolean passesRounds(BigInteger number, int numOfIterations) {
+        BigInteger power = number.subtract(BigInteger.ONE);
+        int powerOfTwo = power.getLowestSetBit();
+        BigInteger u = power.shiftRight(powerOfTwo);
 
-        for (int i = 0; i < numOfIterations; i++) {
-            testNumber = RandomBigIntegerGenerator.generate(number.bitLength(), BigInteger.ZERO, number);
-            if (witness(testNumber, number)) {
-                return false;
+        if (number.bitLength() <= Integer.SIZE) {
+            long modulo = number.longValue();
+            for (int base : deterministicBases(modulo)) {
+                if (witness(base, modulo, u.longValue(), powerOfTwo)) {
+                    return false;
+                }
             }
+            return true;
         }
 
+        BigInteger[] bases;
+        if (number.compareTo(LONG_LIMIT) < 0) {
+            int[] small = deterministicBases(number.bitLength() < Long.SIZE ? number.longValue() : Long.MAX_VALUE);
+            bases = new BigInteger[small.length];
+            for (int i = 0; i < small.length; i++) {
+                bases[i] = BigInteger.valueOf(small[i]);
+            }
+        } else {
+            bases = new BigInteger[Math.max(numOfIterations, 0)];
+            for (int i = 0; i < bases.length; i++) {
+                // a > 1 and a < (n - 1) excludes the bases every number passes
+                bases[i] = RandomBigIntegerGenerator.generate(number.bitLength(), BigInteger.ONE, power);
+            }
+        }
+        if (bases.length == 0) {
+            return true;
+        }
+
+        // one exponentiation to u and at most powerOfTwo squarings per base
+        ModularArithmetic arithmetic = ModularArithmeticFactory.create(number,
+                (long) bases.length * u.bitLength(), (long) bases.length * powerOfTwo);
+        AtomicBoolean composite = new AtomicBoolean();
+
+        // most composites fail the first round, so only the rounds after it are worth spreading over threads
+        if (witness(bases[0], number, u, powerOfTwo, arithmetic, composite)) {
+            return false;
+        }
+        if (number.bitLength() >= PARALLEL_MIN_BITS && bases.length > 2) {
+            ForkJoinPool.commonPool().invoke(
+                    new Rounds(bases, 1, bases.length, number, u, powerOfTwo, arithmetic, composite));
+            return !composite.get();
+        }
+
+        for (int i = 1; i < bases.length; i++) {
+            if (witness(bases[i], number, u, powerOfTwo, arithmetic, composite)) {
+                return false;
+            }
+        }
         return true;
     }
+
+    private static int[] deterministicBases(long number) {
+        int count = DETERMINISTIC_BASES.length;
+        for (int i = 0; i < BASE_LIMITS.length; i++) {
+            if (number < BASE_LIMITS[i]) {
+                count = BASE_COUNTS[i];
+                break;
+            }
+        }
+
+        int[] bases = new int[count];
+        System.arraycopy(DETERMINISTIC_BASES, 0, bases, 0, count);
+        return bases;
+    }
+
+    // rounds with bases [from, to), a round is skipped once another one has found a witness
+    private static final class Rounds extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final BigInteger[] bases;
+        private final int from;
+        private final int to;
+        private final BigInteger modulo;
+        private final BigInteger u;
+        private final int powerOfTwo;
+        private final ModularArithmetic arithmetic;
+        private final AtomicBoolean composite;
+
+        Rounds(BigInteger[] bases, int from, int to, BigInteger modulo, BigInteger u, int powerOfTwo,
+               ModularArithmetic arithmetic, AtomicBoolean composite) {
+            this.bases = bases;
+            this.from = from;
+            this.to = to;
+            this.modulo = modulo;
+            this.u = u;
+            this.powerOfTwo = powerOfTwo;
+            this.arithmetic = arithmetic;
+            this.composite = composite;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Rounds(bases, from, middle, modulo, u, powerOfTwo, arithmetic, composite),
+                        new Rounds(bases, middle, to, modulo, u, powerOfTwo, arithmetic, composite));
+                return;
+            }
+
+            for (int i = from; i < to && !composite.get(); i++) {
+                if (witness(bases[i], modulo, u, powerOfTwo, arithmetic, composite)) {
+                    composite.set(true);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,16 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+
+// arithmetic modulo one fixed modulo, implemented by MontgomeryArithmetics and BarrettReduction,
+// ModularArithmeticFactory picks one of them
+public interface ModularArithmetic {
+
+    BigInteger getModulo();
+
+    // (a * b) mod modulo
+    BigInteger multiply(BigInteger a, BigInteger b);
+
+    // (number ^ power) mod modulo, power must not be negative
+    BigInteger pow(BigInteger number, BigInteger power);
+}
@@ -0,0 +1,23 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+
+public abstract class ModularArithmeticFactory {
+    // below this many bits of powers the cheaper setup of Barrett reduction wins
+    private static final long MONTGOMERY_MIN_POWER_BITS = 64;
+    // from this length the products of BigInteger make Barrett exponentiation faster than the schoolbook
+    // limb products of MontgomeryMultiplier
+    private static final int MONTGOMERY_MAX_BITS = 768;
+
+    // Montgomery needs an odd modulo and only pays off in pow(), where the operands stay in Montgomery form.
+    // its multiply() is slower than the one of Barrett reduction, so arithmetic expected to do more single
+    // products than bits of powers gets Barrett reduction. powerBits is the total length of the powers
+    // passed to pow(), products the number of calls to multiply()
+    public static ModularArithmetic create(BigInteger modulo, long powerBits, long products) {
+        if (!modulo.testBit(0) || modulo.bitLength() >= MONTGOMERY_MAX_BITS
+                || powerBits < MONTGOMERY_MIN_POWER_BITS || products > powerBits) {
+            return new BarrettReduction(modulo);
+        }
+        return new MontgomeryArithmetics(modulo);
+    }
+}
@@ -2,21 +2,40 @@ package cyb.cryptology.basic_algorithms;
 
 import java.math.BigInteger;
 
-public class MontgomeryArithmetics {
+// Montgomery arithmetic for an odd modulo. pow() runs on the limbs of MontgomeryMultiplier, which is
+// not faster than BarrettReduction from about 768 bits (see there), multiply() is a plain product and remainder.
+// ModularArithmeticFactory picks this class only for short moduli and pow()-heavy work.
+public class MontgomeryArithmetics implements ModularArithmetic {
     private final BigInteger modulo;
     private final BigInteger denominator;
-    private final BigInteger moduloCoefficient;
+    // -n ^ (-1) mod r for montgomeryProduct(), found by the extended Euclidean algorithm on first use
+    private BigInteger moduloCoefficient;
+    // limb-based engine used by pow(), null for moduli it does not support
+    private final MontgomeryMultiplier multiplier;
 
     public MontgomeryArithmetics(BigInteger modulo) {
         this.modulo = modulo;
         this.denominator = BigInteger.ONE.shiftLeft(modulo.bitLength());
-        EuclideanResult result = ExtendedEuclideanAlgorithm.gcd(modulo, denominator);
-        this.moduloCoefficient = result.getX().negate();
+        // r = 2 ^ k must be coprime with the modulo
+        this.multiplier = modulo.signum() > 0 && modulo.testBit(0) ? new MontgomeryMultiplier(modulo) : null;
+    }
+
+    @Override
+    public BigInteger getModulo() {
+        return modulo;
     }
 
     public BigInteger montgomeryProduct(BigInteger a, BigInteger b) {
+        // BigInteger is immutable, so threads racing here at worst compute the same value twice
+        BigInteger coefficient = moduloCoefficient;
+        if (coefficient == null) {
+            EuclideanResult result = ExtendedEuclideanAlgorithm.gcd(modulo, denominator);
+            coefficient = result.getX().negate();
+            moduloCoefficient = coefficient;
+        }
+
         BigInteger t = a.multiply(b);
-        BigInteger current = t.multiply(moduloCoefficient);
+        BigInteger current = t.multiply(coefficient);
 
         // (t * n') % r, where r = 2 ^ k
         if (current.bitLength() >= denominator.bitLength()) {
@@ -38,22 +57,49 @@ public class MontgomeryArithmetics {
         return current;
     }
 
-    private BigInteger getNResidue(BigInteger number) {
-        // (number * r) mod n, where r = 2 ^ k
-        return number.shiftLeft(denominator.bitLength() - 1).mod(modulo);
+    // a single product gains nothing from the Montgomery form, converting to it costs a division of its own
+    @Override
+    public BigInteger multiply(BigInteger a, BigInteger b) {
+        return a.multiply(b).mod(modulo);
     }
 
+    @Override
     public BigInteger pow(BigInteger number, BigInteger power) {
-        BigInteger a = getNResidue(number);
-        BigInteger current = getNResidue(BigInteger.ONE);
+        if (multiplier != null) {
+            return multiplier.pow(number, power);
+        }
+        // even modulo, no Montgomery form exists
+        return RepeatedSquaringModularExponentiation.powSlidingWindow(number.mod(modulo), power, modulo);
+    }
 
-        for (int i = power.bitLength() - 1; i >= 0; i--) {
-            current = montgomeryProduct(current, current);
-            if (power.testBit(i)) {
-                current = montgomeryProduct(current, a);
-            }
+    // (bases[0] ^ powers[0] * ... * bases[k - 1] ^ powers[k - 1]) mod modulo with one shared chain of squarings
+    public BigInteger multiPow(BigInteger[] bases, BigInteger[] powers) {
+        if (multiplier != null) {
+            return multiplier.multiPow(bases, powers);
+        }
+        if (bases.length != powers.length) {
+            throw new IllegalArgumentException(bases.length + " bases but " + powers.length + " powers");
         }
+        BigInteger result = BigInteger.ONE.mod(modulo);
+        for (int i = 0; i < bases.length; i++) {
+            result = result.multiply(pow(bases[i], powers[i])).mod(modulo);
+        }
+        return result;
+    }
+
+    // pow() for secret powers, its time does not depend on the bits of powers shorter than the modulo
+    public BigInteger powConstantTime(BigInteger number, BigInteger power) {
+        if (multiplier == null) {
+            throw new IllegalArgumentException("Constant-time exponentiation needs an odd modulo");
+        }
+        return multiplier.powConstantTime(number, power);
+    }
 
-        return montgomeryProduct(current, BigInteger.ONE);
+    // precomputed exponentiation of base for powers as long as the modulo, shared through an LRU cache
+    public FixedBaseExponentiation fixedBase(BigInteger base) {
+        if (multiplier == null) {
+            throw new IllegalArgumentException("Fixed-base exponentiation needs an odd modulo");
+        }
+        return FixedBaseExponentiation.of(base, modulo);
     }
 }
@@ -0,0 +1,446 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+
+// Montgomery arithmetic modulo an odd n on little-endian arrays of 64-bit limbs, with r = 2 ^ (64 * limbs).
+// Elements are long[limbs + 2] arrays made by newElement(): the value takes the first limbs words,
+// the last two are room for the carries of a product, so the loops never allocate.
+// Instances are immutable and can be shared between threads.
+// The limb products are plain Java loops, so this engine is only the fast path for short moduli.
+// pow() and BarrettReduction.pow() are within noise of each other around 512 to 768 bits, above that the
+// products of BigInteger, an intrinsic of HotSpot and Karatsuba from 2560 bits, make Barrett faster (about
+// 1.5 against 2.0 ms per pow() at 896 bits and 2.0-3.1 against 2.6-3.9 ms at 1024 on one core).
+// ModularArithmeticFactory therefore gives moduli of 768 bits or more to Barrett reduction,
+// ModularExponentiationBenchmark prints where the two cross.
+public final class MontgomeryMultiplier {
+    // largest window of powConstantTime(), its table is read in full for every digit
+    private static final int CONSTANT_TIME_WINDOW = 5;
+
+    private final BigInteger modulo;
+    private final int limbs;
+    private final long[] n;
+    // -n ^ (-1) mod 2 ^ 64
+    private final long inverse;
+    // r mod n
+    private final long[] one;
+
+    public MontgomeryMultiplier(BigInteger modulo) {
+        if (modulo.signum() <= 0 || !modulo.testBit(0)) {
+            throw new IllegalArgumentException("Modulo must be positive and odd: " + modulo);
+        }
+
+        this.modulo = modulo;
+        this.limbs = (modulo.bitLength() + 63) >>> 6;
+        this.n = newElement();
+        toLimbs(modulo, n);
+
+        // Newton's iteration x = x * (2 - n * x) doubles the correct low bits, n * n = 1 (mod 8) gives 3 to start
+        long x = n[0];
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - n[0] * x;
+        }
+        this.inverse = -x;
+
+        this.one = newElement();
+        toLimbs(BigInteger.ONE.shiftLeft(64 * limbs).mod(modulo), one);
+    }
+
+    public BigInteger getModulo() {
+        return modulo;
+    }
+
+    public int getLimbs() {
+        return limbs;
+    }
+
+    public long[] newElement() {
+        return new long[limbs + 2];
+    }
+
+    // (number * r) mod n
+    public void toMontgomery(BigInteger number, long[] out) {
+        toLimbs(number.shiftLeft(64 * limbs).mod(modulo), out);
+    }
+
+    // (a * r ^ (-1)) mod n
+    public BigInteger fromMontgomery(long[] a) {
+        long[] unit = newElement();
+        long[] result = newElement();
+        unit[0] = 1;
+        multiply(a, unit, result);
+        return fromLimbs(result, limbs);
+    }
+
+    // (a * b) mod n for numbers in ordinary form: a * r and b multiplied in Montgomery form give a * b
+    public BigInteger multiply(BigInteger a, BigInteger b) {
+        long[] x = newElement();
+        long[] y = newElement();
+        long[] product = newElement();
+        toMontgomery(a, x);
+        toLimbs(b.mod(modulo), y);
+        multiply(x, y, product);
+        return fromLimbs(product, limbs);
+    }
+
+    // r mod n, the Montgomery form of 1
+    public void one(long[] out) {
+        System.arraycopy(one, 0, out, 0, limbs + 2);
+    }
+
+    // out = (a * b * r ^ (-1)) mod n by coarsely integrated operand scanning, out must not be a or b
+    public void multiply(long[] a, long[] b, long[] out) {
+        int s = limbs;
+        long[] t = out;
+        for (int i = 0; i < s + 2; i++) {
+            t[i] = 0;
+        }
+
+        for (int i = 0; i < s; i++) {
+            // t += a * b[i]
+            long bi = b[i];
+            long carry = 0;
+            for (int j = 0; j < s; j++) {
+                long aj = a[j];
+                long low = aj * bi;
+                long high = unsignedMultiplyHigh(aj, bi);
+                low += t[j];
+                high += Long.compareUnsigned(low, t[j]) < 0 ? 1 : 0;
+                low += carry;
+                high += Long.compareUnsigned(low, carry) < 0 ? 1 : 0;
+                t[j] = low;
+                carry = high;
+            }
+            long sum = t[s] + carry;
+            t[s + 1] = Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+            t[s] = sum;
+
+            // t = (t + m * n) / 2 ^ 64, m is chosen so that the lowest limb becomes zero
+            long m = t[0] * inverse;
+            long low = m * n[0];
+            carry = unsignedMultiplyHigh(m, n[0]);
+            low += t[0];
+            carry += Long.compareUnsigned(low, t[0]) < 0 ? 1 : 0;
+            for (int j = 1; j < s; j++) {
+                long nj = n[j];
+                low = m * nj;
+                long high = unsignedMultiplyHigh(m, nj);
+                low += t[j];
+                high += Long.compareUnsigned(low, t[j]) < 0 ? 1 : 0;
+                low += carry;
+                high += Long.compareUnsigned(low, carry) < 0 ? 1 : 0;
+                t[j - 1] = low;
+                carry = high;
+            }
+            sum = t[s] + carry;
+            t[s - 1] = sum;
+            t[s] = t[s + 1] + (Long.compareUnsigned(sum, carry) < 0 ? 1 : 0);
+        }
+        t[s + 1] = 0;
+
+        // t < 2 * n: t - n is kept unless it borrows past t[s], chosen by a mask rather than a branch
+        // so that the time of a product does not depend on its value
+        long borrow = 0;
+        for (int j = 0; j < s; j++) {
+            borrow = subtractBorrow(t[j], n[j], t[j] - n[j] - borrow);
+        }
+        long keep = -(borrow & ~t[s]);
+        borrow = 0;
+        for (int j = 0; j < s; j++) {
+            long tj = t[j];
+            long difference = tj - n[j] - borrow;
+            borrow = subtractBorrow(tj, n[j], difference);
+            t[j] = (tj & keep) | (difference & ~keep);
+        }
+        t[s] = 0;
+    }
+
+    // (base ^ power) mod n by left-to-right sliding windows over the odd powers of base,
+    // the window size grows with the bit length of power
+    public BigInteger pow(BigInteger base, BigInteger power) {
+        checkPower(power);
+        int bits = power.bitLength();
+        int window = RepeatedSquaringModularExponentiation.windowSize(bits);
+
+        long[] current = newElement();
+        long[] next = newElement();
+        long[][] table = oddPowers(base, window, current);
+
+        one(current);
+        boolean started = false;
+        int i = bits - 1;
+        while (i >= 0) {
+            if (!power.testBit(i)) {
+                if (started) {
+                    multiply(current, current, next);
+                    long[] swap = current;
+                    current = next;
+                    next = swap;
+                }
+                i--;
+                continue;
+            }
+
+            // longest window of at most window bits from bit i that ends with a one
+            int low = Math.max(i - window + 1, 0);
+            while (!power.testBit(low)) {
+                low++;
+            }
+            int value = 0;
+            for (int j = i; j >= low; j--) {
+                value = value << 1 | (power.testBit(j) ? 1 : 0);
+                if (started) {
+                    multiply(current, current, next);
+                    long[] swap = current;
+                    current = next;
+                    next = swap;
+                }
+            }
+
+            if (started) {
+                multiply(current, table[value >>> 1], next);
+                long[] swap = current;
+                current = next;
+                next = swap;
+            } else {
+                System.arraycopy(table[value >>> 1], 0, current, 0, limbs + 2);
+                started = true;
+            }
+            i = low - 1;
+        }
+
+        return fromMontgomery(current);
+    }
+
+    // (base ^ power) mod n by the k-ary method: window squarings, then one product per window-bit digit
+    public BigInteger powKary(BigInteger base, BigInteger power) {
+        checkPower(power);
+        int bits = power.bitLength();
+        int window = RepeatedSquaringModularExponentiation.windowSize(bits);
+        long[][] table = powers(base, window);
+        long[] current = newElement();
+        long[] next = newElement();
+
+        one(current);
+        for (int position = (bits + window - 1) / window * window - window; position >= 0; position -= window) {
+            for (int j = 0; j < window; j++) {
+                multiply(current, current, next);
+                long[] swap = current;
+                current = next;
+                next = swap;
+            }
+
+            int digit = 0;
+            for (int j = window - 1; j >= 0; j--) {
+                digit = digit << 1 | (power.testBit(position + j) ? 1 : 0);
+            }
+            if (digit != 0) {
+                multiply(current, table[digit], next);
+                long[] swap = current;
+                current = next;
+                next = swap;
+            }
+        }
+
+        return fromMontgomery(current);
+    }
+
+    // (base ^ power) mod n for a secret power: fixed windows over at least as many bits as n has, every digit
+    // costs the same squarings and one product, and each table entry is read whatever the digit is,
+    // so neither the time nor the memory accesses depend on the bits of power below that length
+    public BigInteger powConstantTime(BigInteger base, BigInteger power) {
+        checkPower(power);
+        int bits = Math.max(power.bitLength(), modulo.bitLength());
+        int window = Math.min(RepeatedSquaringModularExponentiation.windowSize(bits), CONSTANT_TIME_WINDOW);
+        long[][] table = powers(base, window);
+        long[] current = newElement();
+        long[] next = newElement();
+        long[] entry = newElement();
+
+        int digits = (bits + window - 1) / window;
+        long[] exponent = new long[(digits * window + 63) / 64 + 1];
+        toLimbs(power, exponent, exponent.length);
+
+        one(current);
+        for (int d = digits - 1; d >= 0; d--) {
+            for (int j = 0; j < window; j++) {
+                multiply(current, current, next);
+                long[] swap = current;
+                current = next;
+                next = swap;
+            }
+
+            int position = d * window;
+            int shift = position & 63;
+            long word = exponent[position >>> 6] >>> shift;
+            if (shift + window > 64) {
+                word |= exponent[(position >>> 6) + 1] << (64 - shift);
+            }
+            long digit = word & ((1L << window) - 1);
+
+            // entry = table[digit], every entry is read and masked
+            for (int j = 0; j < limbs; j++) {
+                entry[j] = 0;
+            }
+            for (int e = 0; e < table.length; e++) {
+                long mask = ((e ^ digit) - 1) >> 63;
+                long[] candidate = table[e];
+                for (int j = 0; j < limbs; j++) {
+                    entry[j] |= candidate[j] & mask;
+                }
+            }
+
+            multiply(current, entry, next);
+            long[] swap = current;
+            current = next;
+            next = swap;
+        }
+
+        return fromMontgomery(current);
+    }
+
+    // (bases[0] ^ powers[0] * ... * bases[k - 1] ^ powers[k - 1]) mod n by Straus' interleaved sliding windows:
+    // every base has its own table of odd powers and windows, all of them share one chain of squarings
+    public BigInteger multiPow(BigInteger[] bases, BigInteger[] powers) {
+        if (bases.length != powers.length) {
+            throw new IllegalArgumentException(bases.length + " bases but " + powers.length + " powers");
+        }
+
+        int count = bases.length;
+        int bits = 0;
+        for (BigInteger power : powers) {
+            checkPower(power);
+            bits = Math.max(bits, power.bitLength());
+        }
+
+        // windows[i][b] != 0 when a window of powers[i] with that odd value ends at bit b
+        long[][][] tables = new long[count][][];
+        int[][] windows = new int[count][];
+        long[] current = newElement();
+        long[] next = newElement();
+        for (int i = 0; i < count; i++) {
+            int window = RepeatedSquaringModularExponentiation.windowSize(powers[i].bitLength());
+            tables[i] = oddPowers(bases[i], window, current);
+            windows[i] = slidingWindows(powers[i], window, bits);
+        }
+
+        one(current);
+        boolean started = false;
+        for (int b = bits - 1; b >= 0; b--) {
+            if (started) {
+                multiply(current, current, next);
+                long[] swap = current;
+                current = next;
+                next = swap;
+            }
+            for (int i = 0; i < count; i++) {
+                int value = windows[i][b];
+                if (value == 0) {
+                    continue;
+                }
+                if (started) {
+                    multiply(current, tables[i][value >>> 1], next);
+                    long[] swap = current;
+                    current = next;
+                    next = swap;
+                } else {
+                    System.arraycopy(tables[i][value >>> 1], 0, current, 0, limbs + 2);
+                    started = true;
+                }
+            }
+        }
+
+        return fromMontgomery(current);
+    }
+
+    // table[i] = base ^ (2 * i + 1) in Montgomery form for i < 2 ^ (window - 1), square is scratch
+    private long[][] oddPowers(BigInteger base, int window, long[] square) {
+        long[][] table = new long[1 << (window - 1)][];
+        table[0] = newElement();
+        toMontgomery(base, table[0]);
+        if (table.length > 1) {
+            multiply(table[0], table[0], square);
+            for (int i = 1; i < table.length; i++) {
+                table[i] = newElement();
+                multiply(table[i - 1], square, table[i]);
+            }
+        }
+        return table;
+    }
+
+    // odd window values of power indexed by the bit where each window ends, scanning from the top
+    private static int[] slidingWindows(BigInteger power, int window, int length) {
+        int[] windows = new int[length];
+        int i = power.bitLength() - 1;
+        while (i >= 0) {
+            if (!power.testBit(i)) {
+                i--;
+                continue;
+            }
+            int low = Math.max(i - window + 1, 0);
+            while (!power.testBit(low)) {
+                low++;
+            }
+            int value = 0;
+            for (int j = i; j >= low; j--) {
+                value = value << 1 | (power.testBit(j) ? 1 : 0);
+            }
+            windows[low] = value;
+            i = low - 1;
+        }
+        return windows;
+    }
+
+    // table[i] = base ^ i in Montgomery form for i < 2 ^ window
+    private long[][] powers(BigInteger base, int window) {
+        long[][] table = new long[1 << window][];
+        table[0] = newElement();
+        one(table[0]);
+        table[1] = newElement();
+        toMontgomery(base, table[1]);
+        for (int i = 2; i < table.length; i++) {
+            table[i] = newElement();
+            multiply(table[i - 1], table[1], table[i]);
+        }
+        return table;
+    }
+
+    private static void checkPower(BigInteger power) {
+        if (power.signum() < 0) {
+            throw new IllegalArgumentException("Negative power: " + power);
+        }
+    }
+
+    // high 64 bits of the unsigned 128-bit product, from the signed one
+    static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    // borrow out of difference = x - y - borrow in
+    private static long subtractBorrow(long x, long y, long difference) {
+        return ((~x & y) | (~(x ^ y) & difference)) >>> 63;
+    }
+
+    // number must be in [0, n)
+    private void toLimbs(BigInteger number, long[] out) {
+        toLimbs(number, out, limbs);
+    }
+
+    // low 64 * count bits of a non-negative number
+    private static void toLimbs(BigInteger number, long[] out, int count) {
+        byte[] bytes = number.toByteArray();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = 0;
+        }
+        for (int i = 0; i < bytes.length && i < 8 * count; i++) {
+            out[i >>> 3] |= (bytes[bytes.length - 1 - i] & 0xFFL) << (8 * (i & 7));
+        }
+    }
+
+    private static BigInteger fromLimbs(long[] a, int limbs) {
+        byte[] bytes = new byte[8 * limbs];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[bytes.length - 1 - i] = (byte) (a[i >>> 3] >>> (8 * (i & 7)));
+        }
+        return new BigInteger(1, bytes);
+    }
+}
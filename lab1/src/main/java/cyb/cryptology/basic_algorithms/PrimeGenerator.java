@@ -0,0 +1,123 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// Random primes of an exact bit length. From a random odd start the SIEVE_LENGTH odd numbers
+// start, start + 2, ... are sieved by the odd primes below SIEVE_BOUND, and only the survivors,
+// about one in ten, get Miller-Rabin rounds. The residues of start modulo the sieve primes are computed
+// once and moved along incrementally when the search continues into the next interval.
+public abstract class PrimeGenerator {
+    private static final int SIEVE_LENGTH = 1 << 16;
+    private static final int SIEVE_BOUND = 1 << 16;
+    // below this length candidates are drawn at random and tested one by one
+    private static final int MIN_SIEVE_BITS = 32;
+
+    private static final SecureRandom random = new SecureRandom();
+    // odd primes below SIEVE_BOUND
+    private static final int[] primes;
+    // product of primes[groupStarts[i]] ... primes[groupStarts[i + 1] - 1], that fits in a long
+    private static final BigInteger[] products;
+    private static final int[] groupStarts;
+
+    static {
+        int[] all = TrialDivision.sieve(SIEVE_BOUND);
+        primes = Arrays.copyOfRange(all, 1, all.length);
+        groupStarts = TrialDivision.groupStarts(primes);
+        products = TrialDivision.products(primes, groupStarts);
+    }
+
+    public static BigInteger generate(int bitLength) {
+        return generate(bitLength, random);
+    }
+
+    // prime of exactly bitLength bits
+    public static BigInteger generate(int bitLength, Random random) {
+        if (bitLength < 2) {
+            throw new IllegalArgumentException("Bit length must be at least 2: " + bitLength);
+        }
+        int iterations = iterations(bitLength);
+
+        if (bitLength < MIN_SIEVE_BITS) {
+            while (true) {
+                BigInteger candidate = new BigInteger(bitLength, random).setBit(bitLength - 1);
+                if (MillerRabinPrimalityTest.isPrime(candidate, iterations)) {
+                    return candidate;
+                }
+            }
+        }
+
+        while (true) {
+            BigInteger start = new BigInteger(bitLength, random).setBit(bitLength - 1).setBit(0);
+            BigInteger prime = search(start, bitLength, iterations);
+            if (prime != null) {
+                return prime;
+            }
+        }
+    }
+
+    // count primes of bitLength bits generated in parallel on the common ForkJoinPool
+    public static BigInteger[] generate(int bitLength, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count: " + count);
+        }
+        return IntStream.range(0, count).parallel().mapToObj(i -> generate(bitLength)).toArray(BigInteger[]::new);
+    }
+
+    // first prime from odd start on, null once the search leaves the numbers of bitLength bits
+    private static BigInteger search(BigInteger start, int bitLength, int iterations) {
+        // residues[j] = start mod primes[j]
+        int[] residues = new int[primes.length];
+        TrialDivision.residues(start, primes, groupStarts, products, residues);
+
+        boolean[] composite = new boolean[SIEVE_LENGTH];
+        while (true) {
+            // start + 2 * i = 0 (mod p) for i = -start / 2 (mod p), and then for every p-th i
+            for (int j = 0; j < primes.length; j++) {
+                int prime = primes[j];
+                int first = (int) ((long) (prime - residues[j]) % prime * ((prime + 1) >>> 1) % prime);
+                for (int i = first; i < SIEVE_LENGTH; i += prime) {
+                    composite[i] = true;
+                }
+            }
+
+            for (int i = 0; i < SIEVE_LENGTH; i++) {
+                if (composite[i]) {
+                    continue;
+                }
+                BigInteger candidate = start.add(BigInteger.valueOf(2L * i));
+                if (candidate.bitLength() > bitLength) {
+                    return null;
+                }
+                if (MillerRabinPrimalityTest.passesRounds(candidate, iterations)) {
+                    return candidate;
+                }
+            }
+
+            // the next interval starts 2 * SIEVE_LENGTH further
+            start = start.add(BigInteger.valueOf(2L * SIEVE_LENGTH));
+            for (int j = 0; j < primes.length; j++) {
+                residues[j] = (int) ((residues[j] + 2L * SIEVE_LENGTH) % primes[j]);
+            }
+            Arrays.fill(composite, false);
+        }
+    }
+
+    // Miller-Rabin rounds for a random candidate of bitLength bits, slightly more than BigInteger takes
+    // for certainty 100 without its Lucas test
+    static int iterations(int bitLength) {
+        if (bitLength < 256) {
+            return 27;
+        }
+        if (bitLength < 512) {
+            return 15;
+        }
+        if (bitLength < 1024) {
+            return 8;
+        }
+        return 5;
+    }
+}
@@ -1,8 +1,11 @@
 package cyb.cryptology.basic_algorithms;
 
 import java.math.BigInteger;
+import java.util.function.BinaryOperator;
 
 public abstract class RepeatedSquaringModularExponentiation {
+    // window sizes 1, 2, ... are used for exponents of up to this many bits
+    private static final int[] WINDOW_THRESHOLDS = {7, 25, 81, 241, 673, 1793};
 
     public static BigInteger pow(BigInteger number, BigInteger power, BigInteger modulo) {
         BigInteger result = BigInteger.ONE;
@@ -13,9 +16,92 @@ public abstract class RepeatedSquaringModularExponentiation {
             if (power.testBit(i)) {
                 result = result.multiply(current).mod(modulo);
             }
-            current = current.pow(2).mod(modulo);
+            current = current.multiply(current).mod(modulo);
         }
 
         return result;
     }
+
+    // k-ary method: table of number ^ 0 ... number ^ (2 ^ k - 1), then k squarings and one product per digit
+    public static BigInteger powKary(BigInteger number, BigInteger power, BigInteger modulo) {
+        int length = power.bitLength();
+        int window = windowSize(length);
+
+        BigInteger[] table = new BigInteger[1 << window];
+        table[0] = BigInteger.ONE.mod(modulo);
+        for (int i = 1; i < table.length; i++) {
+            table[i] = table[i - 1].multiply(number).mod(modulo);
+        }
+
+        BigInteger result = table[0];
+        for (int position = (length + window - 1) / window * window - window; position >= 0; position -= window) {
+            for (int j = 0; j < window; j++) {
+                result = result.multiply(result).mod(modulo);
+            }
+
+            int digit = 0;
+            for (int j = window - 1; j >= 0; j--) {
+                digit = digit << 1 | (power.testBit(position + j) ? 1 : 0);
+            }
+            if (digit != 0) {
+                result = result.multiply(table[digit]).mod(modulo);
+            }
+        }
+
+        return result;
+    }
+
+    // sliding windows: only odd powers number ^ 1, number ^ 3, ... are tabulated,
+    // runs of zero bits cost one squaring each and every window ends with a one
+    public static BigInteger powSlidingWindow(BigInteger number, BigInteger power, BigInteger modulo) {
+        return powSlidingWindow(number, power, modulo, (a, b) -> a.multiply(b).mod(modulo));
+    }
+
+    // sliding windows with the modular product multiply
+    static BigInteger powSlidingWindow(BigInteger number, BigInteger power, BigInteger modulo,
+                                       BinaryOperator<BigInteger> multiply) {
+        int length = power.bitLength();
+        int window = windowSize(length);
+
+        // table[i] = number ^ (2 * i + 1)
+        BigInteger[] table = new BigInteger[1 << (window - 1)];
+        table[0] = number.mod(modulo);
+        BigInteger square = multiply.apply(table[0], table[0]);
+        for (int i = 1; i < table.length; i++) {
+            table[i] = multiply.apply(table[i - 1], square);
+        }
+
+        BigInteger result = BigInteger.ONE.mod(modulo);
+        int i = length - 1;
+        while (i >= 0) {
+            if (!power.testBit(i)) {
+                result = multiply.apply(result, result);
+                i--;
+                continue;
+            }
+
+            int low = Math.max(i - window + 1, 0);
+            while (!power.testBit(low)) {
+                low++;
+            }
+            int value = 0;
+            for (int j = i; j >= low; j--) {
+                value = value << 1 | (power.testBit(j) ? 1 : 0);
+                result = multiply.apply(result, result);
+            }
+            result = multiply.apply(result, table[value >>> 1]);
+            i = low - 1;
+        }
+
+        return result;
+    }
+
+    // window size for an exponent of the given bit length, trading the table size against saved products
+    static int windowSize(int bitLength) {
+        int window = 1;
+        while (window <= WINDOW_THRESHOLDS.length && bitLength > WINDOW_THRESHOLDS[window - 1]) {
+            window++;
+        }
+        return window;
+    }
 }
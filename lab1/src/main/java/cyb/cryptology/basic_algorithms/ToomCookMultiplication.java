@@ -0,0 +1,147 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Products of large numbers. A single thread cannot beat BigInteger.multiply, whose Toom-Cook-3 runs on the
+// intrinsic schoolbook loop of HotSpot, so multiply() is BigInteger.multiply. parallelMultiply() splits
+// factors of at least PARALLEL_THRESHOLD bits by Toom-Cook-3 and computes the 5 sub-products as tasks on
+// a ForkJoinPool, the common one by default, splitting them again while they are long enough. Shorter
+// products are left to BigInteger.multiply, the splitting and the interpolation only add and shift.
+public abstract class ToomCookMultiplication {
+    // 1024 limbs of 64 bits, below this forking costs more than the product
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final BigInteger THREE = BigInteger.valueOf(3);
+
+    public static BigInteger multiply(BigInteger left, BigInteger right) {
+        return left.multiply(right);
+    }
+
+    public static BigInteger parallelMultiply(BigInteger left, BigInteger right) {
+        return parallelMultiply(left, right, ForkJoinPool.commonPool());
+    }
+
+    // BigInteger.multiply as well for short factors or when the pool has a single thread
+    public static BigInteger parallelMultiply(BigInteger left, BigInteger right, ForkJoinPool pool) {
+        if (Math.min(left.bitLength(), right.bitLength()) < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            return left.multiply(right);
+        }
+        return pool.invoke(new Product(left, right));
+    }
+
+    // a * b, every sub-product of at least PARALLEL_THRESHOLD bits forked
+    private static BigInteger product(BigInteger a, BigInteger b) {
+        if (a.bitLength() < b.bitLength()) {
+            BigInteger swap = a;
+            a = b;
+            b = swap;
+        }
+
+        int length = b.bitLength();
+        if (length < PARALLEL_THRESHOLD) {
+            return a.multiply(b);
+        }
+        if (2 * length <= a.bitLength()) {
+            return unbalanced(a, b);
+        }
+        return toomCook3(a, b);
+    }
+
+    // slices of a as long as b, each a balanced product
+    private static BigInteger unbalanced(BigInteger a, BigInteger b) {
+        int length = b.bitLength();
+        boolean negative = a.signum() < 0;
+        BigInteger magnitude = a.abs();
+
+        List<Product> slices = new ArrayList<>();
+        for (int offset = 0; offset < magnitude.bitLength(); offset += length) {
+            slices.add(new Product(bits(magnitude, offset, length), b));
+        }
+        Product.invokeAll(slices);
+
+        BigInteger result = BigInteger.ZERO;
+        for (int i = slices.size() - 1; i >= 0; i--) {
+            result = result.shiftLeft(length).add(slices.get(i).join());
+        }
+        return negative ? result.negate() : result;
+    }
+
+    // a = a2 * X ^ 2 + a1 * X + a0 and b alike with X = 2 ^ k, the product polynomial is
+    // evaluated at 0, 1, -1, 2 and infinity and interpolated by the sequence of Bodrato
+    private static BigInteger toomCook3(BigInteger a, BigInteger b) {
+        int signum = a.signum() * b.signum();
+        a = a.abs();
+        b = b.abs();
+
+        int k = (Math.max(a.bitLength(), b.bitLength()) + 2) / 3;
+        BigInteger a0 = bits(a, 0, k);
+        BigInteger a1 = bits(a, k, k);
+        BigInteger a2 = a.shiftRight(2 * k);
+        BigInteger b0 = bits(b, 0, k);
+        BigInteger b1 = bits(b, k, k);
+        BigInteger b2 = b.shiftRight(2 * k);
+
+        // a(-1) = a2 + a0 - a1, a(1) = a2 + a0 + a1, a(2) = 2 * (a(1) + a2) - a0
+        BigInteger da1 = a2.add(a0);
+        BigInteger db1 = b2.add(b0);
+        BigInteger am1 = da1.subtract(a1);
+        BigInteger bm1 = db1.subtract(b1);
+        da1 = da1.add(a1);
+        db1 = db1.add(b1);
+        BigInteger da2 = da1.add(a2).shiftLeft(1).subtract(a0);
+        BigInteger db2 = db1.add(b2).shiftLeft(1).subtract(b0);
+
+        Product v0 = new Product(a0, b0);
+        Product v1 = new Product(da1, db1);
+        Product vm1 = new Product(am1, bm1);
+        Product v2 = new Product(da2, db2);
+        Product vInf = new Product(a2, b2);
+        Product.invokeAll(v0, v1, vm1, v2, vInf);
+
+        BigInteger p0 = v0.join();
+        BigInteger p1 = v1.join();
+        BigInteger pm1 = vm1.join();
+        BigInteger pInf = vInf.join();
+
+        // all divisions are exact
+        BigInteger t2 = v2.join().subtract(pm1).divide(THREE);
+        BigInteger tm1 = p1.subtract(pm1).shiftRight(1);
+        BigInteger t1 = p1.subtract(p0);
+        t2 = t2.subtract(t1).shiftRight(1);
+        t1 = t1.subtract(tm1).subtract(pInf);
+        t2 = t2.subtract(pInf.shiftLeft(1));
+        tm1 = tm1.subtract(t2);
+
+        BigInteger result = pInf.shiftLeft(k).add(t2).shiftLeft(k).add(t1).shiftLeft(k).add(tm1).shiftLeft(k)
+                .add(p0);
+        return signum < 0 ? result.negate() : result;
+    }
+
+    // length bits of the non-negative x starting at bit from
+    private static BigInteger bits(BigInteger x, int from, int length) {
+        BigInteger shifted = x.shiftRight(from);
+        if (shifted.bitLength() <= length) {
+            return shifted;
+        }
+        return shifted.and(BigInteger.ONE.shiftLeft(length).subtract(BigInteger.ONE));
+    }
+
+    private static final class Product extends RecursiveTask<BigInteger> {
+        private static final long serialVersionUID = 1L;
+        private final BigInteger a;
+        private final BigInteger b;
+
+        Product(BigInteger a, BigInteger b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        protected BigInteger compute() {
+            return product(a, b);
+        }
+    }
+}
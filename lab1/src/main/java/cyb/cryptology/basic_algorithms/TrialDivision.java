@@ -0,0 +1,112 @@
+package cyb.cryptology.basic_algorithms;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Trial division by the table of primes below BOUND. A large number is divided once per group of primes
+// whose product fits in a long, the primes of the group are then tested on the long remainder.
+public abstract class TrialDivision {
+    public static final int BOUND = 1 << 10;
+    // numbers without a factor in the table are prime below the square of its largest prime
+    public static final BigInteger PRIME_LIMIT;
+
+    private static final int[] primes;
+    // product of primes[groupStarts[i]] ... primes[groupStarts[i + 1] - 1]
+    private static final BigInteger[] products;
+    private static final int[] groupStarts;
+
+    static {
+        primes = sieve(BOUND);
+        PRIME_LIMIT = BigInteger.valueOf(primes[primes.length - 1]).pow(2);
+        groupStarts = groupStarts(primes);
+        products = products(primes, groupStarts);
+    }
+
+    // primes below limit by the sieve of Eratosthenes
+    static int[] sieve(int limit) {
+        boolean[] composite = new boolean[Math.max(limit, 2)];
+        int count = 0;
+        for (int i = 2; i < limit; i++) {
+            if (composite[i]) {
+                continue;
+            }
+            count++;
+            for (long j = (long) i * i; j < limit; j += i) {
+                composite[(int) j] = true;
+            }
+        }
+
+        int[] result = new int[count];
+        for (int i = 2, j = 0; i < limit; i++) {
+            if (!composite[i]) {
+                result[j++] = i;
+            }
+        }
+        return result;
+    }
+
+    // boundaries of the runs of primes whose products fit in a long, the last entry is primes.length
+    static int[] groupStarts(int[] primes) {
+        int[] starts = new int[primes.length + 1];
+        int groups = 0;
+        int i = 0;
+        while (i < primes.length) {
+            starts[groups++] = i;
+            long product = 1;
+            while (i < primes.length && product <= Long.MAX_VALUE / primes[i]) {
+                product *= primes[i++];
+            }
+        }
+        starts[groups] = primes.length;
+        return Arrays.copyOf(starts, groups + 1);
+    }
+
+    static BigInteger[] products(int[] primes, int[] groupStarts) {
+        BigInteger[] result = new BigInteger[groupStarts.length - 1];
+        for (int group = 0; group < result.length; group++) {
+            long product = 1;
+            for (int i = groupStarts[group]; i < groupStarts[group + 1]; i++) {
+                product *= primes[i];
+            }
+            result[group] = BigInteger.valueOf(product);
+        }
+        return result;
+    }
+
+    // residues[i] = number mod primes[i], with one division of number per group
+    static void residues(BigInteger number, int[] primes, int[] groupStarts, BigInteger[] products, int[] residues) {
+        for (int group = 0; group < products.length; group++) {
+            long remainder = number.mod(products[group]).longValue();
+            for (int i = groupStarts[group]; i < groupStarts[group + 1]; i++) {
+                residues[i] = (int) (remainder % primes[i]);
+            }
+        }
+    }
+
+    public static int[] getPrimes() {
+        return primes.clone();
+    }
+
+    // smallest prime below BOUND dividing a positive number, 0 if there is none
+    public static int smallestFactor(BigInteger number) {
+        if (number.bitLength() < Long.SIZE) {
+            long value = number.longValue();
+            for (int prime : primes) {
+                if (value % prime == 0) {
+                    return prime;
+                }
+            }
+            return 0;
+        }
+
+        for (int group = 0; group < products.length; group++) {
+            long remainder = number.mod(products[group]).longValue();
+            for (int i = groupStarts[group]; i < groupStarts[group + 1]; i++) {
+                if (remainder % primes[i] == 0) {
+                    return primes[i];
+                }
+            }
+        }
+        return 0;
+    }
+}
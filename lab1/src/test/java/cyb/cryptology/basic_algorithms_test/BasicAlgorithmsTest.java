@@ -5,6 +5,12 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class BasicAlgorithmsTest {
 
@@ -20,6 +26,79 @@ public class BasicAlgorithmsTest {
         Assertions.assertEquals(result.getY(), BigInteger.valueOf(14));
     }
 
+    @Test
+    public void testLehmerGcd() {
+        Random random = new Random(28);
+
+        for (int i = 0; i < 2000; i++) {
+            // balanced, unbalanced, small and zero operands, with and without a common factor
+            BigInteger common = new BigInteger(1 + random.nextInt(200), random);
+            BigInteger a = new BigInteger(random.nextInt(3000), random);
+            BigInteger b = new BigInteger(random.nextInt(3000), random);
+            if (i % 3 == 0) {
+                a = a.multiply(common);
+                b = b.multiply(common);
+            }
+
+            EuclideanResult expected = ExtendedEuclideanAlgorithm.gcd(a, b);
+            EuclideanResult result = ExtendedEuclideanAlgorithm.lehmerGcd(a, b);
+            Assertions.assertEquals(a.gcd(b), expected.getGcd());
+            Assertions.assertEquals(expected.getGcd(), result.getGcd());
+            Assertions.assertEquals(expected.getX(), result.getX());
+            Assertions.assertEquals(expected.getY(), result.getY());
+        }
+
+        // the recursive version ran out of stack on long chains of small quotients
+        BigInteger f0 = BigInteger.ZERO;
+        BigInteger f1 = BigInteger.ONE;
+        for (int i = 0; i < 50000; i++) {
+            BigInteger f = f0.add(f1);
+            f0 = f1;
+            f1 = f;
+        }
+        Assertions.assertEquals(BigInteger.ONE, ExtendedEuclideanAlgorithm.gcd(f1, f0).getGcd());
+        EuclideanResult fibonacci = ExtendedEuclideanAlgorithm.lehmerGcd(f1, f0);
+        Assertions.assertEquals(BigInteger.ONE, fibonacci.getX().multiply(f1).add(fibonacci.getY().multiply(f0)));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ExtendedEuclideanAlgorithm.lehmerGcd(BigInteger.ONE.negate(), BigInteger.TEN));
+    }
+
+    @Test
+    public void testModInverse() {
+        Random random = new Random(29);
+
+        for (BigInteger modulo : new BigInteger[]{BigInteger.ONE, BigInteger.valueOf(97),
+                BigInteger.probablePrime(1024, random), new BigInteger(2048, random).setBit(0)}) {
+            BigInteger[] numbers = new BigInteger[50];
+            for (int i = 0; i < numbers.length; i++) {
+                do {
+                    numbers[i] = new BigInteger(modulo.bitLength() + 10, random);
+                    if (random.nextBoolean()) {
+                        numbers[i] = numbers[i].negate();
+                    }
+                } while (!numbers[i].gcd(modulo).equals(BigInteger.ONE));
+
+                Assertions.assertEquals(numbers[i].modInverse(modulo),
+                        ExtendedEuclideanAlgorithm.modInverse(numbers[i], modulo));
+            }
+
+            BigInteger[] inverses = ExtendedEuclideanAlgorithm.modInverse(numbers, modulo);
+            for (int i = 0; i < numbers.length; i++) {
+                Assertions.assertEquals(numbers[i].modInverse(modulo), inverses[i]);
+            }
+        }
+
+        BigInteger modulo = BigInteger.valueOf(100);
+        Assertions.assertEquals(0, ExtendedEuclideanAlgorithm.modInverse(new BigInteger[0], modulo).length);
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> ExtendedEuclideanAlgorithm.modInverse(BigInteger.TEN, modulo));
+        Assertions.assertThrows(ArithmeticException.class, () -> ExtendedEuclideanAlgorithm.modInverse(
+                new BigInteger[]{BigInteger.ONE, BigInteger.valueOf(3), BigInteger.TWO}, modulo));
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> ExtendedEuclideanAlgorithm.modInverse(BigInteger.ONE, BigInteger.ZERO));
+    }
+
     @Test
     public void testRepeatedSquaringModularExponentiation() {
         BigInteger number = BigInteger.valueOf(7);
@@ -41,12 +120,318 @@ public class BasicAlgorithmsTest {
         Assertions.assertEquals(montgomery.pow(number, power), BigInteger.ONE);
     }
 
+    @Test
+    public void testMontgomeryMultiplier() {
+        Random random = new Random(16);
+
+        for (int bits : new int[]{2, 63, 64, 65, 127, 128, 521, 1024, 2048}) {
+            BigInteger modulo = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+            MontgomeryMultiplier multiplier = new MontgomeryMultiplier(modulo);
+            MontgomeryArithmetics montgomery = new MontgomeryArithmetics(modulo);
+
+            for (int i = 0; i < 5; i++) {
+                BigInteger number = new BigInteger(bits + 8, random);
+                BigInteger power = new BigInteger(bits, random);
+                Assertions.assertEquals(number.modPow(power, modulo), multiplier.pow(number, power));
+                Assertions.assertEquals(number.modPow(power, modulo), montgomery.pow(number, power));
+            }
+
+            BigInteger last = modulo.subtract(BigInteger.ONE);
+            Assertions.assertEquals(BigInteger.ONE.mod(modulo), multiplier.pow(last, BigInteger.ZERO));
+            Assertions.assertEquals(BigInteger.ZERO, multiplier.pow(BigInteger.ZERO, BigInteger.TEN));
+            Assertions.assertEquals(last.modPow(BigInteger.TWO.pow(bits), modulo),
+                    multiplier.pow(last, BigInteger.TWO.pow(bits)));
+            Assertions.assertEquals(BigInteger.valueOf(-3).modPow(BigInteger.TEN, modulo),
+                    multiplier.pow(BigInteger.valueOf(-3), BigInteger.TEN));
+        }
+
+        // even moduli are outside Montgomery arithmetic and take the fallback
+        BigInteger even = BigInteger.valueOf(1L << 40).add(BigInteger.valueOf(6));
+        Assertions.assertEquals(BigInteger.valueOf(5).modPow(BigInteger.valueOf(12345), even),
+                new MontgomeryArithmetics(even).pow(BigInteger.valueOf(5), BigInteger.valueOf(12345)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MontgomeryMultiplier(even));
+    }
+
+    @Test
+    public void testWindowExponentiation() {
+        Random random = new Random(17);
+
+        // exponent lengths crossing every window size threshold
+        for (int bits : new int[]{1, 5, 20, 64, 100, 300, 1000, 2048}) {
+            BigInteger modulo = new BigInteger(Math.max(bits, 16), random).setBit(Math.max(bits, 16) - 1).setBit(0);
+            BigInteger even = modulo.add(BigInteger.ONE);
+            MontgomeryMultiplier multiplier = new MontgomeryMultiplier(modulo);
+            MontgomeryArithmetics montgomery = new MontgomeryArithmetics(modulo);
+
+            for (BigInteger power : new BigInteger[]{BigInteger.ZERO, BigInteger.ONE,
+                    new BigInteger(bits, random), BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE),
+                    BigInteger.ONE.shiftLeft(bits), modulo.shiftLeft(3)}) {
+                BigInteger number = new BigInteger(modulo.bitLength() + 3, random);
+                BigInteger expected = number.modPow(power, modulo);
+
+                Assertions.assertEquals(expected, multiplier.pow(number, power));
+                Assertions.assertEquals(expected, multiplier.powKary(number, power));
+                Assertions.assertEquals(expected, multiplier.powConstantTime(number, power));
+                Assertions.assertEquals(expected, montgomery.powConstantTime(number, power));
+                Assertions.assertEquals(expected, RepeatedSquaringModularExponentiation.powKary(number, power, modulo));
+                Assertions.assertEquals(expected,
+                        RepeatedSquaringModularExponentiation.powSlidingWindow(number, power, modulo));
+                Assertions.assertEquals(number.modPow(power, even),
+                        RepeatedSquaringModularExponentiation.powSlidingWindow(number, power, even));
+            }
+        }
+
+        MontgomeryArithmetics even = new MontgomeryArithmetics(BigInteger.valueOf(100));
+        Assertions.assertEquals(BigInteger.valueOf(49), even.pow(BigInteger.valueOf(7), BigInteger.TWO));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> even.powConstantTime(BigInteger.valueOf(7), BigInteger.TWO));
+    }
+
+    @Test
+    public void testFixedBaseExponentiation() {
+        Random random = new Random(18);
+        BigInteger modulo = new BigInteger(512, random).setBit(511).setBit(0);
+        BigInteger generator = new BigInteger(600, random);
+
+        for (int window : new int[]{1, 3, 8}) {
+            FixedBaseExponentiation fixed = new FixedBaseExponentiation(generator, modulo, 300, window);
+            Assertions.assertEquals((300 + window - 1) / window, fixed.getTableSize());
+
+            // short, full-length and too long powers, the last ones through the fallback
+            for (BigInteger power : new BigInteger[]{BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(255),
+                    new BigInteger(300, random), BigInteger.ONE.shiftLeft(300).subtract(BigInteger.ONE),
+                    new BigInteger(700, random)}) {
+                Assertions.assertEquals(generator.modPow(power, modulo), fixed.pow(power));
+            }
+        }
+
+        FixedBaseExponentiation.clearCache();
+        MontgomeryArithmetics montgomery = new MontgomeryArithmetics(modulo);
+        FixedBaseExponentiation cached = montgomery.fixedBase(generator);
+        Assertions.assertSame(cached, FixedBaseExponentiation.of(generator.mod(modulo), modulo));
+        Assertions.assertEquals(modulo.bitLength(), cached.getMaxPowerBits());
+        BigInteger power = new BigInteger(512, random);
+        Assertions.assertEquals(generator.modPow(power, modulo), cached.pow(power));
+
+        // least recently used instances are dropped beyond the capacity
+        int capacity = FixedBaseExponentiation.getCacheCapacity();
+        try {
+            FixedBaseExponentiation.setCacheCapacity(2);
+            FixedBaseExponentiation two = FixedBaseExponentiation.of(BigInteger.TWO, modulo);
+            FixedBaseExponentiation.of(generator, modulo);
+            FixedBaseExponentiation.of(BigInteger.TEN, modulo);
+            Assertions.assertSame(cached, FixedBaseExponentiation.of(generator, modulo));
+            Assertions.assertNotSame(two, montgomery.fixedBase(BigInteger.TWO));
+        } finally {
+            FixedBaseExponentiation.setCacheCapacity(capacity);
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new MontgomeryArithmetics(BigInteger.valueOf(100)).fixedBase(BigInteger.TWO));
+    }
+
+    @Test
+    public void testMultiExponentiation() {
+        Random random = new Random(19);
+
+        for (BigInteger modulo : new BigInteger[]{new BigInteger(256, random).setBit(255).setBit(0),
+                new BigInteger(256, random).setBit(255).clearBit(0)}) {
+            MontgomeryArithmetics montgomery = new MontgomeryArithmetics(modulo);
+
+            for (int count : new int[]{0, 1, 2, 5, 16}) {
+                BigInteger[] bases = new BigInteger[count];
+                BigInteger[] powers = new BigInteger[count];
+                BigInteger expected = BigInteger.ONE.mod(modulo);
+                for (int i = 0; i < count; i++) {
+                    bases[i] = new BigInteger(300, random);
+                    // powers of different lengths, including zero
+                    powers[i] = i == 1 ? BigInteger.ZERO : new BigInteger(1 + random.nextInt(256), random);
+                    expected = expected.multiply(bases[i].modPow(powers[i], modulo)).mod(modulo);
+                }
+                Assertions.assertEquals(expected, montgomery.multiPow(bases, powers));
+            }
+
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> montgomery.multiPow(new BigInteger[]{BigInteger.TWO}, new BigInteger[0]));
+        }
+    }
+
+    @Test
+    public void testBarrettReduction() {
+        Random random = new Random(20);
+
+        for (BigInteger modulo : new BigInteger[]{BigInteger.ONE, BigInteger.valueOf(7), BigInteger.valueOf(100),
+                new BigInteger(512, random).setBit(511).setBit(0), new BigInteger(512, random).setBit(511).clearBit(0),
+                BigInteger.ONE.shiftLeft(300)}) {
+            BarrettReduction barrett = new BarrettReduction(modulo);
+            MontgomeryArithmetics montgomery = new MontgomeryArithmetics(modulo);
+
+            for (int i = 0; i < 50; i++) {
+                BigInteger a = new BigInteger(1 + random.nextInt(2 * modulo.bitLength()), random);
+                BigInteger b = new BigInteger(1 + random.nextInt(600), random);
+                BigInteger power = new BigInteger(random.nextInt(600), random);
+
+                Assertions.assertEquals(a.mod(modulo), barrett.reduce(a));
+                Assertions.assertEquals(a.multiply(b).mod(modulo), barrett.multiply(a, b));
+                Assertions.assertEquals(a.multiply(b).mod(modulo), montgomery.multiply(a, b));
+                Assertions.assertEquals(a.modPow(power, modulo), barrett.pow(a, power));
+                if (modulo.testBit(0)) {
+                    // a * b / r mod n with r = 2 ^ k, the coefficient is computed on the first call
+                    BigInteger r = BigInteger.ONE.shiftLeft(modulo.bitLength());
+                    Assertions.assertEquals(a.multiply(b).multiply(r.modInverse(modulo)).mod(modulo),
+                            montgomery.montgomeryProduct(a.mod(modulo), b.mod(modulo)).mod(modulo));
+                }
+            }
+
+            // negative numbers and numbers beyond 4 ^ k take the division
+            BigInteger large = BigInteger.ONE.shiftLeft(2 * modulo.bitLength() + 5).add(BigInteger.TEN);
+            Assertions.assertEquals(large.mod(modulo), barrett.reduce(large));
+            Assertions.assertEquals(large.negate().mod(modulo), barrett.reduce(large.negate()));
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BarrettReduction(BigInteger.ZERO));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new BarrettReduction(BigInteger.TEN).pow(BigInteger.TWO, BigInteger.ONE.negate()));
+    }
+
+    @Test
+    public void testModularArithmeticFactory() {
+        Random random = new Random(21);
+        BigInteger odd = new BigInteger(512, random).setBit(511).setBit(0);
+        BigInteger even = odd.clearBit(0);
+        BigInteger large = new BigInteger(1024, random).setBit(1023).setBit(0);
+
+        Assertions.assertTrue(ModularArithmeticFactory.create(odd, 1024, 8) instanceof MontgomeryArithmetics);
+        Assertions.assertTrue(ModularArithmeticFactory.create(odd, 8, 0) instanceof BarrettReduction);
+        Assertions.assertTrue(ModularArithmeticFactory.create(odd, 0, 1024) instanceof BarrettReduction);
+        Assertions.assertTrue(ModularArithmeticFactory.create(odd, 1024, 4096) instanceof BarrettReduction);
+        Assertions.assertTrue(ModularArithmeticFactory.create(even, 1024, 0) instanceof BarrettReduction);
+        Assertions.assertTrue(ModularArithmeticFactory.create(large, 4096, 0) instanceof BarrettReduction);
+
+        BigInteger number = new BigInteger(1100, random);
+        BigInteger power = new BigInteger(1024, random);
+        for (BigInteger modulo : new BigInteger[]{odd, even, large}) {
+            for (long[] operations : new long[][]{{1, 0}, {1 << 20, 0}, {0, 1 << 20}}) {
+                ModularArithmetic arithmetic = ModularArithmeticFactory.create(modulo, operations[0], operations[1]);
+                Assertions.assertEquals(modulo, arithmetic.getModulo());
+                Assertions.assertEquals(number.modPow(power, modulo), arithmetic.pow(number, power));
+                Assertions.assertEquals(number.multiply(power).mod(modulo), arithmetic.multiply(number, power));
+            }
+        }
+    }
+
+    @Test
+    public void testPrimeGenerator() {
+        Random random = new Random(25);
+
+        for (int bits : new int[]{2, 3, 16, 31, 32, 33, 64, 65, 256, 512}) {
+            for (int i = 0; i < 5; i++) {
+                BigInteger prime = PrimeGenerator.generate(bits, random);
+                Assertions.assertEquals(bits, prime.bitLength());
+                Assertions.assertTrue(prime.isProbablePrime(100), prime.toString());
+            }
+        }
+
+        BigInteger[] primes = PrimeGenerator.generate(128, 8);
+        Assertions.assertEquals(8, primes.length);
+        for (BigInteger prime : primes) {
+            Assertions.assertEquals(128, prime.bitLength());
+            Assertions.assertTrue(prime.isProbablePrime(100));
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PrimeGenerator.generate(1, random));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PrimeGenerator.generate(64, -1));
+    }
+
+    @Test
+    public void testBatchPrimalityTest() {
+        Random random = new Random(26);
+
+        List<BigInteger> candidates = new ArrayList<>();
+        for (int i = -3; i < 300; i++) {
+            candidates.add(BigInteger.valueOf(i));
+        }
+        for (int bits : new int[]{33, 64, 100, 512}) {
+            for (int i = 0; i < 300; i++) {
+                candidates.add(new BigInteger(bits, random).setBit(bits - 1));
+            }
+            for (int i = 0; i < 20; i++) {
+                BigInteger prime = BigInteger.probablePrime(bits, random);
+                candidates.add(prime);
+                // small factors beyond the trial division table and products of two primes
+                candidates.add(prime.multiply(BigInteger.valueOf(65521)));
+                candidates.add(prime.multiply(BigInteger.probablePrime(bits, random)));
+            }
+        }
+        candidates.add(BigInteger.valueOf(-65537).shiftLeft(64));
+        // Carmichael number 66271 * 132541 * 198811 without small factors passes the Fermat round
+        candidates.add(BigInteger.valueOf(1746281192537521L));
+        Collections.shuffle(candidates, random);
+
+        BitSet result = BatchPrimalityTest.isPrime(candidates.toArray(new BigInteger[0]), 20);
+        for (int i = 0; i < candidates.size(); i++) {
+            BigInteger candidate = candidates.get(i);
+            Assertions.assertEquals(candidate.signum() > 0 && candidate.isProbablePrime(100), result.get(i),
+                    candidate.toString());
+        }
+        Assertions.assertEquals(result, BatchPrimalityTest.isPrime(candidates.stream(), 20));
+        Assertions.assertTrue(BatchPrimalityTest.isPrime(new BigInteger[0], 20).isEmpty());
+    }
+
     @Test
     public void testKaratsubaMultiplication() {
         BigInteger a = BigInteger.valueOf(254165587159L);
         BigInteger b = BigInteger.valueOf(652188247931L);
 
         Assertions.assertEquals(KaratsubaAlgorithm.multiply(a, b), a.multiply(b));
+
+        // long enough to recurse several levels, balanced and of very different lengths, with negative operands
+        Random random = new Random(24);
+        int[][] lengths = {{1024, 1024}, {5000, 5000}, {20000, 1500}, {1500, 20000}, {12345, 3}, {30000, 29000}};
+        for (int[] length : lengths) {
+            BigInteger left = new BigInteger(length[0], random).setBit(length[0] - 1);
+            BigInteger right = new BigInteger(length[1], random).setBit(length[1] - 1);
+            Assertions.assertEquals(left.multiply(right), KaratsubaAlgorithm.multiply(left, right));
+            Assertions.assertEquals(left.negate().multiply(right), KaratsubaAlgorithm.multiply(left.negate(), right));
+        }
+    }
+
+    @Test
+    public void testToomCookMultiplication() {
+        Random random = new Random(27);
+        // the common pool of a single-core machine would multiply sequentially
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        // operands around the parallel cutover and two levels above it, balanced and not
+        int[] sizes = {0, 1, 64, 2049, 40000, 65535, 65536, 65537, 131072, 140001, 400000};
+        for (int leftBits : sizes) {
+            for (int rightBits : sizes) {
+                BigInteger left = new BigInteger(leftBits, random);
+                BigInteger right = new BigInteger(rightBits, random);
+                if (random.nextBoolean()) {
+                    left = left.negate();
+                }
+                BigInteger expected = left.multiply(right);
+
+                Assertions.assertEquals(expected, ToomCookMultiplication.multiply(left, right));
+                Assertions.assertEquals(expected, ToomCookMultiplication.parallelMultiply(left, right, pool));
+                Assertions.assertEquals(expected.negate(),
+                        ToomCookMultiplication.parallelMultiply(right.negate(), left, pool));
+            }
+        }
+
+        // all-ones pieces carry through every addition
+        for (int bits : new int[]{64 * 2048, 64 * 3000 + 5, 600000}) {
+            BigInteger ones = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+            Assertions.assertEquals(ones.multiply(ones), ToomCookMultiplication.parallelMultiply(ones, ones, pool));
+            Assertions.assertEquals(ones.multiply(ones.shiftRight(bits / 3)),
+                    ToomCookMultiplication.parallelMultiply(ones, ones.shiftRight(bits / 3), pool));
+        }
+        pool.shutdown();
+
+        BigInteger left = new BigInteger(200000, random);
+        BigInteger right = new BigInteger(150000, random);
+        Assertions.assertEquals(left.multiply(right), ToomCookMultiplication.parallelMultiply(left, right));
     }
 
     @Test
@@ -73,4 +458,76 @@ public class BasicAlgorithmsTest {
         Assertions.assertFalse(MillerRabinPrimalityTest.isPrime(composite, iterations));
     }
 
+    @Test
+    public void testTrialDivision() {
+        int[] primes = TrialDivision.getPrimes();
+        Assertions.assertEquals(172, primes.length);
+        Assertions.assertEquals(2, primes[0]);
+        Assertions.assertEquals(1021, primes[primes.length - 1]);
+
+        Assertions.assertEquals(0, TrialDivision.smallestFactor(BigInteger.ONE));
+        Assertions.assertEquals(1021, TrialDivision.smallestFactor(BigInteger.valueOf(1021 * 1021)));
+        Assertions.assertEquals(0, TrialDivision.smallestFactor(BigInteger.valueOf(1031 * 1033)));
+        // the large path reduces by products of primes
+        BigInteger large = BigInteger.probablePrime(200, new Random(24));
+        for (int prime : primes) {
+            Assertions.assertEquals(prime, TrialDivision.smallestFactor(large.multiply(BigInteger.valueOf(prime))));
+        }
+        Assertions.assertEquals(0, TrialDivision.smallestFactor(large));
+    }
+
+    @Test
+    public void testDeterministicMillerRabin() {
+        Random random = new Random(22);
+
+        for (int i = 0; i < 2000; i++) {
+            BigInteger number = i < 1000 ? BigInteger.valueOf(i) : new BigInteger(1 + random.nextInt(64), random);
+            Assertions.assertEquals(number.isProbablePrime(100), MillerRabinPrimalityTest.isPrime(number, 0),
+                    number.toString());
+        }
+
+        // strong pseudoprimes to the first 1, 4 and 9 prime bases, Carmichael numbers and primes near 2 ^ 64
+        for (long composite : new long[]{2047L, 561L, 41041L, 3215031751L, 3825123056546413051L}) {
+            Assertions.assertFalse(MillerRabinPrimalityTest.isPrime(BigInteger.valueOf(composite), 0));
+        }
+        Assertions.assertTrue(MillerRabinPrimalityTest.isPrime(BigInteger.valueOf(2147483647L), 0));
+        Assertions.assertTrue(MillerRabinPrimalityTest.isPrime(BigInteger.valueOf(4294967291L), 0));
+        Assertions.assertTrue(MillerRabinPrimalityTest.isPrime(BigInteger.valueOf(Long.MAX_VALUE - 24), 0));
+        Assertions.assertTrue(MillerRabinPrimalityTest.isPrime(new BigInteger("18446744073709551557"), 0));
+        Assertions.assertFalse(MillerRabinPrimalityTest.isPrime(new BigInteger("18446744073709551559"), 0));
+        Assertions.assertFalse(MillerRabinPrimalityTest.isPrime(BigInteger.valueOf(-7), 0));
+    }
+
+    @Test
+    public void testParallelMillerRabin() {
+        Random random = new Random(23);
+
+        for (int bits : new int[]{100, 512, 1024}) {
+            BigInteger p = BigInteger.probablePrime(bits, random);
+            BigInteger q = BigInteger.probablePrime(bits, random);
+
+            Assertions.assertTrue(MillerRabinPrimalityTest.isPrime(p, 20));
+            Assertions.assertFalse(MillerRabinPrimalityTest.isPrime(p.multiply(q), 20));
+        }
+
+        // Carmichael numbers (6k + 1)(12k + 1)(18k + 1) without small factors pass every Fermat round
+        BigInteger six = BigInteger.valueOf(6);
+        for (BigInteger k : new BigInteger[]{BigInteger.valueOf(1000), BigInteger.ONE.shiftLeft(40)}) {
+            while (!k.multiply(six).add(BigInteger.ONE).isProbablePrime(50)
+                    || !k.multiply(six).shiftLeft(1).add(BigInteger.ONE).isProbablePrime(50)
+                    || !k.multiply(six).multiply(BigInteger.valueOf(3)).add(BigInteger.ONE).isProbablePrime(50)) {
+                k = k.add(BigInteger.ONE);
+            }
+            BigInteger carmichael = k.multiply(six).add(BigInteger.ONE)
+                    .multiply(k.multiply(six).shiftLeft(1).add(BigInteger.ONE))
+                    .multiply(k.multiply(six).multiply(BigInteger.valueOf(3)).add(BigInteger.ONE));
+            Assertions.assertFalse(MillerRabinPrimalityTest.isPrime(carmichael, 20), carmichael.toString());
+        }
+
+        Assertions.assertTrue(MillerRabinPrimalityTest.isPrime(BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE),
+                20));
+        Assertions.assertFalse(MillerRabinPrimalityTest.isPrime(BigInteger.ONE.shiftLeft(523).subtract(BigInteger.ONE),
+                20));
+    }
+
 }
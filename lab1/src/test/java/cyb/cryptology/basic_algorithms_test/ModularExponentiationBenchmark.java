@@ -0,0 +1,174 @@
+package cyb.cryptology.basic_algorithms_test;
+
+import cyb.cryptology.basic_algorithms.BarrettReduction;
+import cyb.cryptology.basic_algorithms.FixedBaseExponentiation;
+import cyb.cryptology.basic_algorithms.ModularArithmeticFactory;
+import cyb.cryptology.basic_algorithms.MontgomeryArithmetics;
+import cyb.cryptology.basic_algorithms.MontgomeryMultiplier;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+// rough wall-clock comparison of modular exponentiation with a full-size exponent, run with
+// java -cp target/classes:target/test-classes cyb.cryptology.basic_algorithms_test.ModularExponentiationBenchmark
+// the last line reports the first size where Barrett pow() beats the limb products of MontgomeryMultiplier,
+// next to the first size ModularArithmeticFactory routes to Barrett reduction
+public class ModularExponentiationBenchmark {
+    private static final int[] SIZES = {256, 512, 640, 768, 896, 1024, 2048, 3072, 4096};
+    private static final int[] MULTI_EXPONENTIATION_COUNTS = {2, 4, 16};
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        // first size where Barrett pow() was faster than the sliding window, 0 while Montgomery wins
+        int crossover = 0;
+        // first size ModularArithmeticFactory.create() gave to Barrett reduction for a single pow()
+        int routed = 0;
+
+        for (int bits : SIZES) {
+            BigInteger modulo = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+            BigInteger base = new BigInteger(bits - 1, random);
+            BigInteger power = new BigInteger(bits, random);
+            MontgomeryArithmetics montgomery = new MontgomeryArithmetics(modulo);
+            MontgomeryMultiplier multiplier = new MontgomeryMultiplier(modulo);
+            FixedBaseExponentiation fixedBase = montgomery.fixedBase(base);
+            BarrettReduction barrett = new BarrettReduction(modulo);
+            int repeats = Math.max(2, (1 << 24) / bits / bits * 8);
+
+            BigInteger expected = base.modPow(power, modulo);
+            if (!montgomery.pow(base, power).equals(expected) || !multiplier.powKary(base, power).equals(expected)
+                    || !multiplier.powConstantTime(base, power).equals(expected)
+                    || !fixedBase.pow(power).equals(expected) || !barrett.pow(base, power).equals(expected)
+                    || !productsPow(montgomery, modulo, base, power).equals(expected)) {
+                throw new IllegalStateException("Implementations disagree for " + bits + " bits");
+            }
+
+            long bestLimbs = Long.MAX_VALUE;
+            long bestReduction = Long.MAX_VALUE;
+            for (int warmUp = 0; warmUp < 3; warmUp++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    base.modPow(power, modulo);
+                }
+                long modPow = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    multiplier.pow(base, power);
+                }
+                long limbs = System.nanoTime() - start;
+                bestLimbs = Math.min(bestLimbs, limbs);
+
+                start = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    multiplier.powKary(base, power);
+                }
+                long kary = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    multiplier.powConstantTime(base, power);
+                }
+                long constantTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    fixedBase.pow(power);
+                }
+                long fixed = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    barrett.pow(base, power);
+                }
+                long reduction = System.nanoTime() - start;
+                bestReduction = Math.min(bestReduction, reduction);
+
+                start = System.nanoTime();
+                for (int i = 0; i < Math.max(1, repeats / 8); i++) {
+                    productsPow(montgomery, modulo, base, power);
+                }
+                long products = (System.nanoTime() - start) * repeats / Math.max(1, repeats / 8);
+
+                System.out.printf("%4d bits: modPow %8.3f ms, sliding window %8.3f ms, k-ary %8.3f ms, "
+                                + "constant time %8.3f ms, fixed base %8.3f ms, Barrett %8.3f ms, "
+                                + "BigInteger products %8.3f ms%n", bits,
+                        modPow / 1e6 / repeats, limbs / 1e6 / repeats, kary / 1e6 / repeats,
+                        constantTime / 1e6 / repeats, fixed / 1e6 / repeats, reduction / 1e6 / repeats,
+                        products / 1e6 / repeats);
+            }
+
+            // the best of the runs decides, a single one is too noisy
+            if (crossover == 0 && bestReduction < bestLimbs) {
+                crossover = bits;
+            }
+            if (routed == 0 && ModularArithmeticFactory.create(modulo, bits, 0) instanceof BarrettReduction) {
+                routed = bits;
+            }
+        }
+
+        System.out.printf("Barrett pow faster than Montgomery limb products from %s, "
+                        + "ModularArithmeticFactory picks Barrett from %s%n",
+                crossover == 0 ? "no size" : crossover + " bits", routed == 0 ? "no size" : routed + " bits");
+
+        multiExponentiation(random);
+    }
+
+    // k separate exponentiations multiplied together against one shared squaring chain
+    private static void multiExponentiation(Random random) {
+        int bits = 2048;
+        BigInteger modulo = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+        MontgomeryArithmetics montgomery = new MontgomeryArithmetics(modulo);
+
+        for (int count : MULTI_EXPONENTIATION_COUNTS) {
+            BigInteger[] bases = new BigInteger[count];
+            BigInteger[] powers = new BigInteger[count];
+            for (int i = 0; i < count; i++) {
+                bases[i] = new BigInteger(bits - 1, random);
+                powers[i] = new BigInteger(bits, random);
+            }
+            int repeats = Math.max(2, 64 / count);
+
+            for (int warmUp = 0; warmUp < 3; warmUp++) {
+                long start = System.nanoTime();
+                BigInteger separate = BigInteger.ONE;
+                for (int r = 0; r < repeats; r++) {
+                    separate = BigInteger.ONE;
+                    for (int i = 0; i < count; i++) {
+                        separate = separate.multiply(montgomery.pow(bases[i], powers[i])).mod(modulo);
+                    }
+                }
+                long one = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                BigInteger shared = null;
+                for (int r = 0; r < repeats; r++) {
+                    shared = montgomery.multiPow(bases, powers);
+                }
+                long simultaneous = System.nanoTime() - start;
+
+                if (!separate.equals(shared)) {
+                    throw new IllegalStateException("Multi-exponentiation disagrees for k = " + count);
+                }
+                System.out.printf("%d bits, k = %2d: separate %8.3f ms, simultaneous %8.3f ms%n", bits, count,
+                        one / 1e6 / repeats, simultaneous / 1e6 / repeats);
+            }
+        }
+    }
+
+    // the previous MontgomeryArithmetics.pow(), two BigInteger Montgomery products per exponent bit
+    private static BigInteger productsPow(MontgomeryArithmetics montgomery, BigInteger modulo,
+                                          BigInteger number, BigInteger power) {
+        int k = modulo.bitLength();
+        BigInteger a = number.shiftLeft(k).mod(modulo);
+        BigInteger current = BigInteger.ONE.shiftLeft(k).mod(modulo);
+
+        for (int i = power.bitLength() - 1; i >= 0; i--) {
+            current = montgomery.montgomeryProduct(current, current);
+            if (power.testBit(i)) {
+                current = montgomery.montgomeryProduct(current, a);
+            }
+        }
+
+        return montgomery.montgomeryProduct(current, BigInteger.ONE);
+    }
+}
@@ -0,0 +1,58 @@
+package cyb.cryptology.basic_algorithms_test;
+
+import cyb.cryptology.basic_algorithms.KaratsubaAlgorithm;
+import cyb.cryptology.basic_algorithms.ToomCookMultiplication;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+// rough wall-clock comparison of products of two numbers of the same length, run with
+// java -cp target/classes:target/test-classes cyb.cryptology.basic_algorithms_test.MultiplicationBenchmark
+public class MultiplicationBenchmark {
+    private static final int[] SIZES = {100_000, 1_000_000, 10_000_000};
+    // KaratsubaAlgorithm builds BigIntegers at every level and is left out above this length
+    private static final int KARATSUBA_MAX_BITS = 1_000_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (int bits : SIZES) {
+            BigInteger left = new BigInteger(bits, random);
+            BigInteger right = new BigInteger(bits, random);
+            int repeats = Math.max(1, (int) (2e10 / Math.pow(bits, 1.47)));
+
+            BigInteger expected = left.multiply(right);
+            if (!ToomCookMultiplication.parallelMultiply(left, right).equals(expected)) {
+                throw new IllegalStateException("Implementations disagree for " + bits + " bits");
+            }
+
+            for (int warmUp = 0; warmUp < 3; warmUp++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    left.multiply(right);
+                }
+                long bigInteger = System.nanoTime() - start;
+
+                String karatsuba = "      n/a";
+                if (bits <= KARATSUBA_MAX_BITS) {
+                    start = System.nanoTime();
+                    for (int i = 0; i < repeats; i++) {
+                        KaratsubaAlgorithm.multiply(left, right);
+                    }
+                    karatsuba = String.format("%9.2f", (System.nanoTime() - start) / 1e6 / repeats);
+                }
+
+                start = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    ToomCookMultiplication.parallelMultiply(left, right);
+                }
+                long parallel = System.nanoTime() - start;
+
+                System.out.printf("%8d bits: BigInteger %9.2f ms, Karatsuba %s ms, parallel Toom-Cook on %d cores "
+                                + "%9.2f ms%n", bits, bigInteger / 1e6 / repeats, karatsuba, cores,
+                        parallel / 1e6 / repeats);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package cyb.cryptology.basic_algorithms_test;
+
+import cyb.cryptology.basic_algorithms.BatchPrimalityTest;
+import cyb.cryptology.basic_algorithms.MillerRabinPrimalityTest;
+import cyb.cryptology.basic_algorithms.PrimeGenerator;
+import cyb.cryptology.basic_algorithms.RandomBigIntegerGenerator;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.Random;
+
+// primes per second of random candidates, of the sieve and of the sieve on all cores,
+// then one-by-one against batch screening of random odd candidates, run with
+// java -cp target/classes:target/test-classes cyb.cryptology.basic_algorithms_test.PrimeGenerationBenchmark
+public class PrimeGenerationBenchmark {
+    private static final int[] SIZES = {512, 1024, 2048};
+    private static final int ITERATIONS = 5;
+    private static final int BATCH_SIZE = 2000;
+
+    public static void main(String[] args) {
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (int bits : SIZES) {
+            int count = Math.max(8, (1 << 14) / bits);
+            BigInteger lower = BigInteger.ONE.shiftLeft(bits - 1);
+            BigInteger upper = BigInteger.ONE.shiftLeft(bits);
+
+            for (int warmUp = 0; warmUp < 2; warmUp++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    BigInteger candidate;
+                    do {
+                        candidate = RandomBigIntegerGenerator.generate(bits, lower, upper);
+                    } while (!MillerRabinPrimalityTest.isPrime(candidate, ITERATIONS));
+                }
+                long random = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    PrimeGenerator.generate(bits);
+                }
+                long sieve = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                PrimeGenerator.generate(bits, count * cores);
+                long parallel = System.nanoTime() - start;
+
+                System.out.printf("%4d bits: random candidates %7.2f primes/s, sieve %7.2f primes/s, "
+                                + "sieve on %d cores %7.2f primes/s%n", bits, count / (random / 1e9),
+                        count / (sieve / 1e9), cores, count * cores / (parallel / 1e9));
+            }
+        }
+
+        batchScreening();
+    }
+
+    private static void batchScreening() {
+        Random random = new Random(1);
+
+        for (int bits : SIZES) {
+            BigInteger[] candidates = new BigInteger[BATCH_SIZE];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+            }
+
+            for (int warmUp = 0; warmUp < 2; warmUp++) {
+                long start = System.nanoTime();
+                BitSet single = new BitSet(candidates.length);
+                for (int i = 0; i < candidates.length; i++) {
+                    if (MillerRabinPrimalityTest.isPrime(candidates[i], ITERATIONS)) {
+                        single.set(i);
+                    }
+                }
+                long oneByOne = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                BitSet batch = BatchPrimalityTest.isPrime(candidates, ITERATIONS);
+                long batched = System.nanoTime() - start;
+
+                if (!single.equals(batch)) {
+                    throw new IllegalStateException("Batch result differs for " + bits + " bits");
+                }
+                System.out.printf("%4d bits, %d odd candidates, %d primes: one by one %8.1f ms, batch %8.1f ms%n",
+                        bits, candidates.length, batch.cardinality(), oneByOne / 1e6, batched / 1e6);
+            }
+        }
+    }
+}
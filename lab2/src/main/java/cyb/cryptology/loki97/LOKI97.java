@@ -1,29 +1,8 @@
 package cyb.cryptology.loki97;
 
 public abstract class LOKI97 {
-    /* Size of S-box S1 (2^13) */
-    private static final int S1_SIZE = 0x2000;
-    /* Generator polynomial for S-box S1 in GF(2^13) */
-    private static final int S1_GEN = 0x2911;
-    private static final int S1_MASK = S1_SIZE - 1;
-
-    /* Size of S-box S2 (2^11) */
-    private static final int S2_SIZE = 0x800;
-    /* Generator polynomial for S-box S2 in GF(2^11) */
-    private static final int S2_GEN = 0xAA7;
-    private static final int S2_MASK = S2_SIZE - 1;
-
-    /* Table of permutation P */
-    private static final int[] PERMUTATION_TABLE = {
-            56, 48,	40,	32,	24,	16,	8,  0,
-            57, 49, 41, 33, 25, 17, 9,  1,
-            58,	50,	42,	34,	26,	18,	10,	2,
-            59, 51, 43, 35, 27, 19, 11, 3,
-            60,	52,	44,	36,	28,	20,	12,	4,
-            61, 53, 45, 37, 29, 21, 13, 5,
-            62,	54,	46,	38,	30,	22,	14,	6,
-            63, 55, 47, 39, 31, 23, 15, 7
-    };
+    private static final int S1_MASK = LOKI97Tables.S1_MASK;
+    private static final int S2_MASK = LOKI97Tables.S2_MASK;
 
     private static final long DELTA = 0x9E3779B97F4A7C15L;
 
@@ -42,14 +21,14 @@ public abstract class LOKI97 {
         return (resultLeft << 32) | resultRight;
     }
 
-    /* S1(A) does cubing A by modulo S1_GEN, S1_GEN is irreducible polynomial in GF(2^13), output is 8-bit word */
+    /* S1(A) looks up the precomputed cube of A in GF(2^13), output is 8-bit word */
     private static long s1(int a) {
-        return Utils.pow3InField(a ^ S1_MASK, S1_GEN, S1_SIZE) & 0xFFL;
+        return LOKI97Tables.S1[a] & 0xFFL;
     }
 
-    /* S2(A) does cubing A by modulo S2_GEN, S2_GEN is irreducible polynomial in GF(2^11), output is 8-bit word */
+    /* S2(A) looks up the precomputed cube of A in GF(2^11), output is 8-bit word */
     private static long s2(int a) {
-        return Utils.pow3InField(a ^ S2_MASK, S2_GEN, S2_SIZE) & 0xFFL;
+        return LOKI97Tables.S2[a] & 0xFFL;
     }
 
     /* E(A) splits 64-bit word A into chunks for S1 or S2 input, 96 bits overall */
@@ -83,23 +62,6 @@ public abstract class LOKI97 {
         }
     }
 
-    /* Sa(A) computes S-box column [S1, S2, S1, S2, S2, S1, S2, S1], A is split on chunks by E(),
-    output is 64-bit word */
-    private static long sa(long a) {
-        long result = 0;
-
-        result |= s1(e(a, 0)) << 56;
-        result |= s2(e(a, 1)) << 48;
-        result |= s1(e(a, 2)) << 40;
-        result |= s2(e(a, 3)) << 32;
-        result |= s2(e(a, 4)) << 24;
-        result |= s1(e(a, 5)) << 16;
-        result |= s2(e(a, 6)) << 8;
-        result |= s1(e(a, 7));
-
-        return result;
-    }
-
     /* Sb(A, B) computes S-box column [S2, S2, S1, S1, S2, S2, S1, S1], A is 64-bit word,
     B is 32-bit word, output is 64-bit word */
     private static long sb(long a, long b) {
@@ -117,47 +79,43 @@ public abstract class LOKI97 {
         return result;
     }
 
-    /* P(A) is a permutation of the output of the function Sa(A) */
-    private static long p(long a) {
-        long result = 0L;
-        long bit;
-
-        for (int i = 0; i < 64; i++) {
-            bit = (a & (0x01L << i)) >>> i;
-            result |= bit << PERMUTATION_TABLE[63 - i];
-        }
-
-        return result;
+    /* SP(A) = P(Sa(A)), Sa(A) computes S-box column [S1, S2, S1, S2, S2, S1, S2, S1] over the chunks of E(A)
+    and P permutes its 64-bit output, both are fused into one table lookup per chunk */
+    private static long sp(long a) {
+        return LOKI97Tables.SP1_0[e(a, 0)] | LOKI97Tables.SP2_1[e(a, 1)] |
+               LOKI97Tables.SP1_2[e(a, 2)] | LOKI97Tables.SP2_3[e(a, 3)] |
+               LOKI97Tables.SP2_4[e(a, 4)] | LOKI97Tables.SP1_5[e(a, 5)] |
+               LOKI97Tables.SP2_6[e(a, 6)] | LOKI97Tables.SP1_7[e(a, 7)];
     }
 
     /* f(A,B) = Sb(P(Sa(E(KP(A,B)))),r(B)) - complex non-linear round function */
-    private static long f(long a, long b) {
-        return sb(p(sa(kp(a, b))), b >>> 32);
+    static long f(long a, long b) {
+        return sb(sp(kp(a, b)), b >>> 32);
     }
 
-    /* Computes initial keys S_10, S_20, S_30, S_40 */
-    private static long[] getInitialKeys(String key) {
-        int length = key.length();
+    /* Computes initial keys S_10, S_20, S_30, S_40 from 2, 3 or 4 64-bit key words */
+    private static long[] getInitialKeys(long[] key) {
+        int length = key.length;
         long[] keys = new long[4];
 
-        if (length == 32) {
+        if (length == 2) {
             // length = 128 bits
-            keys[3] = Utils.hexStringToUnsignedLong(key.substring(0, 16));
-            keys[2] = Utils.hexStringToUnsignedLong(key.substring(16, 32));
+            keys[3] = key[0];
+            keys[2] = key[1];
             keys[1] = f(keys[2], keys[3]);
             keys[0] = f(keys[3], keys[2]);
-        } else if (length == 48) {
+        } else if (length == 3) {
             // length = 192 bits
-            keys[3] = Utils.hexStringToUnsignedLong(key.substring(0, 16));
-            keys[2] = Utils.hexStringToUnsignedLong(key.substring(16, 32));
-            keys[1] = Utils.hexStringToUnsignedLong(key.substring(32, 48));
+            keys[3] = key[0];
+            keys[2] = key[1];
+            keys[1] = key[2];
             keys[0] = f(keys[3], keys[2]);
-        } else if (length == 64) {
+        } else if (length == 4) {
             // length = 256 bits
-            keys[3] = Utils.hexStringToUnsignedLong(key.substring(0, 16));
-            keys[2] = Utils.hexStringToUnsignedLong(key.substring(16, 32));
-            keys[1] = Utils.hexStringToUnsignedLong(key.substring(32, 48));
-            keys[0] = Utils.hexStringToUnsignedLong(key.substring(48, 64));
+            keys[3] = key[0];
+            keys[2] = key[1];
+            keys[1] = key[2];
+            keys[0] = key[3];
         }
 
         return keys;
@@ -169,7 +127,7 @@ public abstract class LOKI97 {
     }
 
     /* Computes SK_i session keys, i = 1...48 */
-    private static long[] getSessionKeys(String key) {
+    static long[] getSessionKeys(long[] key) {
         long[] result = new long[48];
         long[] currentKeys = getInitialKeys(key);
 
@@ -185,96 +143,70 @@ public abstract class LOKI97 {
     }
 
     private static boolean isKeyWrong(String key) {
-        return !(key.length() % 16 == 0 || key.length() % 24 == 0 || key.length() % 32 == 0);
+        return !(key.length() == 32 || key.length() == 48 || key.length() == 64) || !Hex.isValid(key);
     }
 
+    /* message must be a whole number of 128-bit blocks, i.e. of 32 hex digits */
     private static boolean isMessageWrong(String message) {
-        return message.length() % 16 != 0;
+        return message.length() % 32 != 0 || !Hex.isValid(message);
     }
 
     public static String encrypt(String message, String key) {
-        if (isMessageWrong(message) || isKeyWrong(key)) {
+        if (isKeyWrong(key)) {
             return "";
         }
 
-        byte[] bytes = Utils.hexStringToBytes(message);
-        int numOfBlocks = bytes.length / 16;
-        byte[] result = new byte[bytes.length];
-
-        long[] sessionKeys = getSessionKeys(key);
-        byte[] leftBytes;
-        byte[] rightBytes;
-        long left, right;
-        long curLeft, curRight;
-        long k1, k2, k3;
-
-        for (int i = 0; i < numOfBlocks; i++) {
-            left = Utils.bytesToUnsignedLong(bytes, i * 16);
-            right = Utils.bytesToUnsignedLong(bytes, i * 16 + 8);
-
-            for (int j = 0; j < 16; j++) {
-                k1 = sessionKeys[3 * j];
-                k2 = sessionKeys[3 * j + 1];
-                k3 = sessionKeys[3 * j + 2];
-
-                curRight = left ^ f(right + k1, k2);
-                curLeft = right + k1 + k3;
-
-                right = curRight;
-                left = curLeft;
-            }
-
-            leftBytes = Utils.unsignedLongToBytes(left);
-            rightBytes = Utils.unsignedLongToBytes(right);
-            for (int k = 0; k < 8; k++) {
-                result[i * 16 + k] = rightBytes[k];
-                result[i * 16 + 8 + k] = leftBytes[k];
-            }
+        return encrypt(message, new LOKI97Key(key));
+    }
+
+    public static String encrypt(String message, LOKI97Key key) {
+        if (isMessageWrong(message)) {
+            return "";
         }
 
-        return Utils.bytesToHexString(result);
+        byte[] bytes = Hex.decode(message);
+        key.encrypt(bytes, 0, bytes, 0, bytes.length);
+
+        return Hex.encode(bytes, true);
     }
 
     public static String decrypt(String cipher, String key) {
-        if (isMessageWrong(cipher) || isKeyWrong(key)) {
+        if (isKeyWrong(key)) {
             return "";
         }
 
-        byte[] bytes = Utils.hexStringToBytes(cipher);
-        int numOfBlocks = bytes.length / 16;
-        byte[] result = new byte[bytes.length];
-
-        long[] sessionKeys = getSessionKeys(key);
-        byte[] leftBytes;
-        byte[] rightBytes;
-        long left, right;
-        long curLeft, curRight;
-        long k1, k2, k3;
-
-        for (int i = 0; i < numOfBlocks; i++) {
-            right = Utils.bytesToUnsignedLong(bytes, i * 16);
-            left = Utils.bytesToUnsignedLong(bytes, i * 16 + 8);
-
-            for (int j = 0; j < 16; j++) {
-                k1 = sessionKeys[3 * (15 - j) + 2];
-                k2 = sessionKeys[3 * (15 - j) + 1];
-                k3 = sessionKeys[3 * (15 - j)];
-
-                curLeft = right ^ f(left - k1, k2);
-                curRight = left - k1 - k3;
-
-                right = curRight;
-                left = curLeft;
-            }
-
-            leftBytes = Utils.unsignedLongToBytes(left);
-            rightBytes = Utils.unsignedLongToBytes(right);
-            for (int k = 0; k < 8; k++) {
-                result[i * 16 + k] = leftBytes[k];
-                result[i * 16 + 8 + k] = rightBytes[k];
-            }
+        return decrypt(cipher, new LOKI97Key(key));
+    }
+
+    public static String decrypt(String cipher, LOKI97Key key) {
+        if (isMessageWrong(cipher)) {
+            return "";
+        }
+
+        byte[] bytes = Hex.decode(cipher);
+        key.decrypt(bytes, 0, bytes, 0, bytes.length);
+
+        return Hex.encode(bytes, true);
+    }
+
+    /* Encrypts a hex message of any whole number of bytes under the given mode, iv is 32 hex digits (ignored for ECB) */
+    public static String encrypt(String message, LOKI97Key key, Mode mode, Padding padding, String iv) {
+        if (!Hex.isValid(message)) {
+            return "";
+        }
+
+        byte[] result = LOKI97Modes.encrypt(mode, padding, key, mode.needsIv() ? Hex.decode(iv) : null,
+                Hex.decode(message));
+        return Hex.encode(result, true);
+    }
+
+    public static String decrypt(String cipher, LOKI97Key key, Mode mode, Padding padding, String iv) {
+        if (!Hex.isValid(cipher)) {
+            return "";
         }
 
-        return Utils.bytesToHexString(result);
+        byte[] result = LOKI97Modes.decrypt(mode, padding, key, mode.needsIv() ? Hex.decode(iv) : null,
+                Hex.decode(cipher));
+        return Hex.encode(result, true);
     }
 }
@@ -0,0 +1,179 @@
+package cyb.cryptology.loki97;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/* Incremental LOKI97 encryption or decryption of one message at a time. Data is fed through update(),
+whole blocks are written out as soon as they are complete and at most one block is kept internally
+(a partial block, or the last full block while decrypting with PKCS#7 padding), so memory use does not
+depend on the message length. doFinal() completes the message and resets the cipher to its IV. */
+public final class LOKI97Cipher {
+    private static final int BLOCK_SIZE = LOKI97Key.BLOCK_SIZE;
+
+    private final Mode mode;
+    private final Padding padding;
+    private final LOKI97Key key;
+    private final boolean encrypt;
+    private final byte[] iv;
+
+    private final long[] register;
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private final ByteBuffer bufferView = ByteBuffer.wrap(buffer);
+    private int buffered;
+
+    /* iv is 16 bytes, ignored (may be null) for ECB */
+    public LOKI97Cipher(Mode mode, Padding padding, LOKI97Key key, byte[] iv, boolean encrypt) {
+        this.mode = mode;
+        this.padding = padding;
+        this.key = key;
+        this.encrypt = encrypt;
+        this.register = LOKI97Modes.initRegister(mode, iv);
+        this.iv = mode.needsIv() ? iv.clone() : null;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Padding getPadding() {
+        return padding;
+    }
+
+    public boolean isEncrypting() {
+        return encrypt;
+    }
+
+    public byte[] getIv() {
+        return iv == null ? null : iv.clone();
+    }
+
+    /* Upper bound on the bytes written by update(len) followed by doFinal() */
+    public int getOutputSize(int len) {
+        int total = buffered + len;
+        if (encrypt && padding == Padding.PKCS7) {
+            return LOKI97Modes.pkcs7PaddedLength(total);
+        }
+        return total;
+    }
+
+    /* Decryption with padding cannot release the last full block until doFinal() shows it is the last one */
+    private boolean holdsLastBlock() {
+        return !encrypt && padding == Padding.PKCS7;
+    }
+
+    /* Number of input bytes held back until the next update() or doFinal() */
+    int getBufferedLength() {
+        return buffered;
+    }
+
+    /* Processes len bytes of in and returns the number of bytes written to out (a multiple of BLOCK_SIZE) */
+    public int update(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (len <= 0) {
+            return 0;
+        }
+        if (in == out && inOff < outOff + getOutputSize(len) && outOff < inOff + len) {
+            // output written ahead of the buffered bytes could overwrite input that has not been read yet
+            in = Arrays.copyOfRange(in, inOff, inOff + len);
+            inOff = 0;
+        }
+
+        return update(ByteBuffer.wrap(in, inOff, len), ByteBuffer.wrap(out, outOff, out.length - outOff));
+    }
+
+    /* Processes all remaining bytes of in, advancing both buffers, and returns the number of bytes written.
+    Heap and direct buffers are read and written in place, in and out must not share memory. */
+    public int update(ByteBuffer in, ByteBuffer out) {
+        int len = in.remaining();
+        if (len == 0) {
+            return 0;
+        }
+
+        int inOff = in.position();
+        int outOff = out.position();
+        int written = 0;
+
+        if (buffered > 0) {
+            int taken = Math.min(len, BLOCK_SIZE - buffered);
+            in.get(buffer, buffered, taken);
+            buffered += taken;
+            inOff += taken;
+            len -= taken;
+
+            if (buffered < BLOCK_SIZE || len == 0 && holdsLastBlock()) {
+                return 0;
+            }
+            LOKI97Modes.process(mode, encrypt, key, register, bufferView, 0, out, outOff, BLOCK_SIZE);
+            buffered = 0;
+            written = BLOCK_SIZE;
+        }
+
+        int direct = len - len % BLOCK_SIZE;
+        if (direct == len && direct > 0 && holdsLastBlock()) {
+            direct -= BLOCK_SIZE;
+        }
+        if (direct > 0) {
+            LOKI97Modes.process(mode, encrypt, key, register, in, inOff, out, outOff + written, direct);
+            written += direct;
+        }
+
+        in.position(inOff + direct);
+        in.get(buffer, 0, len - direct);
+        buffered = len - direct;
+        out.position(outOff + written);
+
+        return written;
+    }
+
+    /* Processes the buffered bytes, adding or removing padding, and returns the number of bytes written.
+    Messages that do not fit the mode and padding, or a corrupted padding, raise IllegalArgumentException. */
+    public int doFinal(byte[] out, int outOff) {
+        return doFinal(ByteBuffer.wrap(out, outOff, out.length - outOff));
+    }
+
+    /* Same as doFinal(byte[], int), advancing the position of out */
+    public int doFinal(ByteBuffer out) {
+        try {
+            int outOff = out.position();
+            int written;
+
+            if (padding == Padding.PKCS7 && encrypt) {
+                LOKI97Modes.pkcs7Pad(buffer, buffered, BLOCK_SIZE);
+                LOKI97Modes.process(mode, true, key, register, bufferView, 0, out, outOff, BLOCK_SIZE);
+                written = BLOCK_SIZE;
+            } else if (padding == Padding.PKCS7) {
+                if (buffered != BLOCK_SIZE) {
+                    throw new IllegalArgumentException("Cipher text is not a whole number of blocks");
+                }
+                LOKI97Modes.process(mode, false, key, register, bufferView, 0, bufferView, 0, BLOCK_SIZE);
+                written = LOKI97Modes.pkcs7UnpaddedLength(buffer, 0, BLOCK_SIZE);
+                out.put(buffer, 0, written);
+            } else {
+                if (buffered != 0 && !mode.isStreamMode()) {
+                    throw new IllegalArgumentException("Message is not a whole number of blocks, use " + Padding.PKCS7);
+                }
+                LOKI97Modes.process(mode, encrypt, key, register, bufferView, 0, out, outOff, buffered);
+                written = buffered;
+            }
+
+            out.position(outOff + written);
+            return written;
+        } finally {
+            reset();
+        }
+    }
+
+    /* Same as update() followed by doFinal(), returns the total number of bytes written */
+    public int doFinal(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        int written = update(in, inOff, len, out, outOff);
+        return written + doFinal(out, outOff + written);
+    }
+
+    /* Drops any buffered input and restarts from the IV */
+    public void reset() {
+        long[] initial = LOKI97Modes.initRegister(mode, iv);
+        register[0] = initial[0];
+        register[1] = initial[1];
+        Arrays.fill(buffer, (byte) 0);
+        buffered = 0;
+    }
+}
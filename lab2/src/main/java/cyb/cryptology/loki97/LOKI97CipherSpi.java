@@ -0,0 +1,235 @@
+package cyb.cryptology.loki97;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.CipherSpi;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import java.nio.ByteBuffer;
+import java.security.AlgorithmParameters;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.InvalidParameterSpecException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/* JCA adapter over LOKI97Cipher, registered by LOKI97Provider as "LOKI97" with modes ECB, CBC, CFB, OFB, CTR
+and paddings NoPadding, PKCS5Padding. The ByteBuffer overloads work on the buffers directly instead of the
+array copies done by the default CipherSpi implementation, unless input and output may share memory. */
+public final class LOKI97CipherSpi extends CipherSpi {
+    private static final int BLOCK_SIZE = LOKI97Key.BLOCK_SIZE;
+
+    private Mode mode = Mode.ECB;
+    private Padding padding = Padding.PKCS7;
+    private LOKI97Cipher cipher;
+
+    @Override
+    protected void engineSetMode(String mode) throws NoSuchAlgorithmException {
+        try {
+            this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new NoSuchAlgorithmException("Unsupported LOKI97 mode " + mode);
+        }
+    }
+
+    @Override
+    protected void engineSetPadding(String padding) throws NoSuchPaddingException {
+        if (padding.equalsIgnoreCase("NoPadding")) {
+            this.padding = Padding.NONE;
+        } else if (padding.equalsIgnoreCase("PKCS5Padding") || padding.equalsIgnoreCase("PKCS7Padding")) {
+            this.padding = Padding.PKCS7;
+        } else {
+            throw new NoSuchPaddingException("Unsupported LOKI97 padding " + padding);
+        }
+    }
+
+    @Override
+    protected int engineGetBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    protected int engineGetOutputSize(int inputLen) {
+        return cipher == null ? inputLen + BLOCK_SIZE : cipher.getOutputSize(inputLen);
+    }
+
+    @Override
+    protected byte[] engineGetIV() {
+        return cipher == null ? null : cipher.getIv();
+    }
+
+    @Override
+    protected AlgorithmParameters engineGetParameters() {
+        // IvParameterSpec is enough to carry the IV, no LOKI97 AlgorithmParameters type is registered
+        return null;
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, SecureRandom random) throws InvalidKeyException {
+        try {
+            engineInit(opmode, key, (AlgorithmParameterSpec) null, random);
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new InvalidKeyException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, AlgorithmParameterSpec params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        boolean encrypt = opmode == Cipher.ENCRYPT_MODE || opmode == Cipher.WRAP_MODE;
+        byte[] raw = key == null ? null : key.getEncoded();
+        if (raw == null || !"RAW".equalsIgnoreCase(key.getFormat())) {
+            throw new InvalidKeyException("LOKI97 needs a raw secret key");
+        }
+
+        LOKI97Key expanded;
+        try {
+            expanded = new LOKI97Key(raw);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidKeyException(e.getMessage(), e);
+        }
+
+        byte[] iv = null;
+        if (params instanceof IvParameterSpec) {
+            iv = ((IvParameterSpec) params).getIV();
+        } else if (params != null) {
+            throw new InvalidAlgorithmParameterException("LOKI97 only accepts IvParameterSpec");
+        }
+
+        if (!mode.needsIv()) {
+            iv = null;
+        } else if (iv == null) {
+            if (!encrypt) {
+                throw new InvalidAlgorithmParameterException("Mode " + mode + " needs an IV to decrypt");
+            }
+            iv = new byte[BLOCK_SIZE];
+            (random == null ? new SecureRandom() : random).nextBytes(iv);
+        } else if (iv.length != BLOCK_SIZE) {
+            throw new InvalidAlgorithmParameterException("IV must be " + BLOCK_SIZE + " bytes");
+        }
+
+        cipher = new LOKI97Cipher(mode, padding, expanded, iv, encrypt);
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, AlgorithmParameters params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        try {
+            engineInit(opmode, key, params == null ? null : params.getParameterSpec(IvParameterSpec.class), random);
+        } catch (InvalidParameterSpecException e) {
+            throw new InvalidAlgorithmParameterException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected byte[] engineUpdate(byte[] input, int inputOffset, int inputLen) {
+        byte[] output = new byte[cipher.getOutputSize(inputLen)];
+        int written = cipher.update(input, inputOffset, inputLen, output, 0);
+        return written == output.length ? output : Arrays.copyOf(output, written);
+    }
+
+    @Override
+    protected int engineUpdate(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException {
+        checkOutput(output.length - outputOffset, updateOutputSize(inputLen));
+        return cipher.update(input, inputOffset, inputLen, output, outputOffset);
+    }
+
+    @Override
+    protected int engineUpdate(ByteBuffer input, ByteBuffer output) throws ShortBufferException {
+        int outputSize = updateOutputSize(input.remaining());
+        checkOutput(output.remaining(), outputSize);
+        return cipher.update(separate(input, output, outputSize), output);
+    }
+
+    @Override
+    protected byte[] engineDoFinal(byte[] input, int inputOffset, int inputLen)
+            throws IllegalBlockSizeException, BadPaddingException {
+        byte[] output = new byte[cipher.getOutputSize(inputLen)];
+        int written;
+        try {
+            written = engineDoFinal(input, inputOffset, inputLen, output, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        return written == output.length ? output : Arrays.copyOf(output, written);
+    }
+
+    @Override
+    protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        checkOutput(output.length - outputOffset, cipher.getOutputSize(inputLen));
+        int written = input == null ? 0 : cipher.update(input, inputOffset, inputLen, output, outputOffset);
+        return written + doFinal(ByteBuffer.wrap(output, outputOffset + written, output.length - outputOffset - written));
+    }
+
+    @Override
+    protected int engineDoFinal(ByteBuffer input, ByteBuffer output)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        int outputSize = cipher.getOutputSize(input.remaining());
+        checkOutput(output.remaining(), outputSize);
+        int written = cipher.update(separate(input, output, outputSize), output);
+        return written + doFinal(output);
+    }
+
+    /* LOKI97Cipher reads and writes buffers in place, so input that outputSize bytes of output may overwrite
+    before it is read is first copied (the input is consumed either way). Heap buffers are compared by array
+    and range. Direct buffers do not expose their address, so two of them are taken to overlap, as CipherSpi
+    does; the same goes for a read-only heap input, whose array is hidden */
+    private static ByteBuffer separate(ByteBuffer input, ByteBuffer output, int outputSize) {
+        boolean overlap;
+        if (input.hasArray() && output.hasArray()) {
+            int inOff = input.arrayOffset() + input.position();
+            int outOff = output.arrayOffset() + output.position();
+            overlap = input.array() == output.array()
+                    && inOff < outOff + outputSize && outOff < inOff + input.remaining();
+        } else {
+            overlap = input.isDirect() == output.isDirect();
+        }
+
+        if (!overlap) {
+            return input;
+        }
+        ByteBuffer copy = ByteBuffer.allocate(input.remaining());
+        copy.put(input).flip();
+        return copy;
+    }
+
+    private int doFinal(ByteBuffer output) throws IllegalBlockSizeException, BadPaddingException {
+        int buffered = cipher.getBufferedLength();
+        boolean decryptPadded = !cipher.isEncrypting() && padding == Padding.PKCS7;
+
+        if (decryptPadded && buffered != BLOCK_SIZE || !decryptPadded && padding == Padding.NONE
+                && !mode.isStreamMode() && buffered != 0) {
+            cipher.reset();
+            throw new IllegalBlockSizeException("Input length is not a multiple of " + BLOCK_SIZE + " bytes");
+        }
+
+        try {
+            return cipher.doFinal(output);
+        } catch (IllegalArgumentException e) {
+            throw new BadPaddingException(e.getMessage());
+        }
+    }
+
+    /* Bytes written by update(): whole blocks, minus the last one while decrypting with padding */
+    private int updateOutputSize(int inputLen) {
+        int total = cipher.getBufferedLength() + inputLen;
+        if (mode.isStreamMode() || padding == Padding.NONE || cipher.isEncrypting()) {
+            return total - total % BLOCK_SIZE;
+        }
+        return Math.max(0, (total - 1) / BLOCK_SIZE * BLOCK_SIZE);
+    }
+
+    private static void checkOutput(int available, int needed) throws ShortBufferException {
+        if (available < needed) {
+            throw new ShortBufferException("Output buffer needs " + needed + " bytes, has " + available);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package cyb.cryptology.loki97;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/* Encrypts or decrypts a file with LOKI97 in CTR mode (the two are the same operation). Input and output
+are memory-mapped window by window, every window is split into chunks encrypted on all cores by LOKI97Modes,
+so the file is never copied onto the heap.
+
+Usage: LOKI97FileCipher <input> <output> <key, 32/48/64 hex digits> <iv, 32 hex digits> */
+public abstract class LOKI97FileCipher {
+    /* Bytes mapped at once, a multiple of the block size well below the 2 GB limit of a mapping */
+    private static final long WINDOW_SIZE = 256L << 20;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: LOKI97FileCipher <input> <output> <key hex> <iv hex>");
+            System.exit(2);
+        }
+
+        LOKI97Key key = new LOKI97Key(args[2]);
+        if (args[3].length() != 2 * LOKI97Key.BLOCK_SIZE) {
+            throw new IllegalArgumentException("IV must be " + 2 * LOKI97Key.BLOCK_SIZE + " hex digits");
+        }
+        byte[] iv = Hex.decode(args[3]);
+
+        long start = System.nanoTime();
+        long size = process(Paths.get(args[0]), Paths.get(args[1]), key, iv);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Processed %d bytes in %.3f s (%.1f MB/s)%n", size, seconds, size / seconds / 1e6);
+    }
+
+    /* Writes input encrypted (or decrypted) with key and the 16-byte initial counter iv to output,
+    which is created or truncated and is on disk when this returns, and returns the number of bytes processed.
+    Output must not be the input file, truncating it would destroy the input before it is read */
+    public static long process(Path input, Path output, LOKI97Key key, byte[] iv) throws IOException {
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("Output is the input file: " + output);
+        }
+        long[] counter = LOKI97Modes.initRegister(Mode.CTR, iv);
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+
+            for (long position = 0; position < size; position += WINDOW_SIZE) {
+                int length = (int) Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                // mapping past the end grows the output file
+                MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, position, length);
+
+                // the counter carries over from one window to the next
+                LOKI97Modes.process(Mode.CTR, true, key, counter, source, 0, target, 0, length);
+                // the window is on disk before the next one is mapped, so the timing in main() includes the writes
+                target.force();
+            }
+
+            return size;
+        }
+    }
+}
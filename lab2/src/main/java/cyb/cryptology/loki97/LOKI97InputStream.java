@@ -0,0 +1,97 @@
+package cyb.cryptology.loki97;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/* Reads the underlying stream through a LOKI97Cipher, the cipher is completed (padding checked or
+removed when decrypting) once the underlying stream reaches its end. */
+public class LOKI97InputStream extends FilterInputStream {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final LOKI97Cipher cipher;
+    private final byte[] input = new byte[CHUNK_SIZE];
+    private final byte[] output = new byte[CHUNK_SIZE + 2 * LOKI97Key.BLOCK_SIZE];
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    public LOKI97InputStream(InputStream in, LOKI97Cipher cipher) {
+        super(in);
+        this.cipher = cipher;
+    }
+
+    /* Refills the output buffer, returns false at the end of the data */
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            if (finished) {
+                return false;
+            }
+
+            position = 0;
+            int read = in.read(input, 0, CHUNK_SIZE);
+            try {
+                if (read < 0) {
+                    finished = true;
+                    limit = cipher.doFinal(output, 0);
+                } else {
+                    limit = cipher.update(input, 0, read, output, 0);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return fill() ? output[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+
+        int count = Math.min(len, limit - position);
+        System.arraycopy(output, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int count = (int) Math.min(n - skipped, limit - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
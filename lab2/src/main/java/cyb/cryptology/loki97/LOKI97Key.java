@@ -0,0 +1,164 @@
+package cyb.cryptology.loki97;
+
+import java.nio.ByteBuffer;
+
+/* Expanded LOKI97 key. The 48 session keys are computed once, together with the
+order in which decryption consumes them, and never change afterwards, so one instance
+can be shared between threads and used for any number of blocks. */
+public final class LOKI97Key {
+    public static final int BLOCK_SIZE = 16;
+
+    private final long[] encryptionKeys;
+    private final long[] decryptionKeys;
+
+    /* key is 32, 48 or 64 hex digits (128, 192 or 256 bits) */
+    public LOKI97Key(String key) {
+        this(Hex.decode(checkHexLength(key)));
+    }
+
+    /* key is 16, 24 or 32 bytes (128, 192 or 256 bits) */
+    public LOKI97Key(byte[] key) {
+        this(key, 0, key.length);
+    }
+
+    public LOKI97Key(byte[] key, int offset, int length) {
+        if (length != 16 && length != 24 && length != 32) {
+            throw new IllegalArgumentException("LOKI97 key must be 128, 192 or 256 bits, got " + length * 8);
+        }
+
+        long[] words = new long[length / 8];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = Utils.bytesToUnsignedLong(key, offset + i * 8);
+        }
+
+        encryptionKeys = LOKI97.getSessionKeys(words);
+        decryptionKeys = new long[48];
+        // decryption round j uses SK[3 * (15 - j) + 2], SK[3 * (15 - j) + 1], SK[3 * (15 - j)]
+        for (int j = 0; j < 16; j++) {
+            decryptionKeys[3 * j] = encryptionKeys[3 * (15 - j) + 2];
+            decryptionKeys[3 * j + 1] = encryptionKeys[3 * (15 - j) + 1];
+            decryptionKeys[3 * j + 2] = encryptionKeys[3 * (15 - j)];
+        }
+    }
+
+    private static String checkHexLength(String key) {
+        if (key.length() != 32 && key.length() != 48 && key.length() != 64) {
+            throw new IllegalArgumentException("LOKI97 key must be 32, 48 or 64 hex digits, got " + key.length());
+        }
+        return key;
+    }
+
+    /* Encrypts the 128-bit block held in block[offset] (first 64 bits) and block[offset + 1] in place */
+    public void encryptBlock(long[] block, int offset) {
+        long left = block[offset];
+        long right = block[offset + 1];
+        long curLeft, curRight;
+        long k1;
+
+        for (int j = 0; j < 48; j += 3) {
+            k1 = encryptionKeys[j];
+
+            curRight = left ^ LOKI97.f(right + k1, encryptionKeys[j + 1]);
+            curLeft = right + k1 + encryptionKeys[j + 2];
+
+            right = curRight;
+            left = curLeft;
+        }
+
+        block[offset] = right;
+        block[offset + 1] = left;
+    }
+
+    /* Decrypts the 128-bit block held in block[offset] (first 64 bits) and block[offset + 1] in place */
+    public void decryptBlock(long[] block, int offset) {
+        long right = block[offset];
+        long left = block[offset + 1];
+        long curLeft, curRight;
+        long k1;
+
+        for (int j = 0; j < 48; j += 3) {
+            k1 = decryptionKeys[j];
+
+            curLeft = right ^ LOKI97.f(left - k1, decryptionKeys[j + 1]);
+            curRight = left - k1 - decryptionKeys[j + 2];
+
+            right = curRight;
+            left = curLeft;
+        }
+
+        block[offset] = left;
+        block[offset + 1] = right;
+    }
+
+    /* Encrypts len bytes (a multiple of BLOCK_SIZE) from in[inOff] into out[outOff], in and out may be the same array */
+    public void encrypt(byte[] in, int inOff, byte[] out, int outOff, int len) {
+        checkLength(len);
+        long[] block = new long[2];
+
+        for (int i = 0; i < len; i += BLOCK_SIZE) {
+            block[0] = Utils.bytesToUnsignedLong(in, inOff + i);
+            block[1] = Utils.bytesToUnsignedLong(in, inOff + i + 8);
+            encryptBlock(block, 0);
+            Utils.unsignedLongToBytes(block[0], out, outOff + i);
+            Utils.unsignedLongToBytes(block[1], out, outOff + i + 8);
+        }
+    }
+
+    /* Decrypts len bytes (a multiple of BLOCK_SIZE) from in[inOff] into out[outOff], in and out may be the same array */
+    public void decrypt(byte[] in, int inOff, byte[] out, int outOff, int len) {
+        checkLength(len);
+        long[] block = new long[2];
+
+        for (int i = 0; i < len; i += BLOCK_SIZE) {
+            block[0] = Utils.bytesToUnsignedLong(in, inOff + i);
+            block[1] = Utils.bytesToUnsignedLong(in, inOff + i + 8);
+            decryptBlock(block, 0);
+            Utils.unsignedLongToBytes(block[0], out, outOff + i);
+            Utils.unsignedLongToBytes(block[1], out, outOff + i + 8);
+        }
+    }
+
+    /* Encrypts all remaining bytes of in (a multiple of BLOCK_SIZE) into out, advancing both positions.
+    Works for heap and direct buffers, in and out may be the same buffer. */
+    public void encrypt(ByteBuffer in, ByteBuffer out) {
+        process(in, out, true);
+    }
+
+    /* Decrypts all remaining bytes of in (a multiple of BLOCK_SIZE) into out, advancing both positions */
+    public void decrypt(ByteBuffer in, ByteBuffer out) {
+        process(in, out, false);
+    }
+
+    private void process(ByteBuffer in, ByteBuffer out, boolean encrypt) {
+        int len = in.remaining();
+        checkLength(len);
+        if (out.remaining() < len) {
+            throw new IllegalArgumentException("Output buffer too short: " + out.remaining() + " < " + len);
+        }
+
+        int inPos = in.position();
+        int outPos = out.position();
+        long[] block = new long[2];
+
+        for (int i = 0; i < len; i += BLOCK_SIZE) {
+            block[0] = Utils.bytesToUnsignedLong(in, inPos + i);
+            block[1] = Utils.bytesToUnsignedLong(in, inPos + i + 8);
+            if (encrypt) {
+                encryptBlock(block, 0);
+            } else {
+                decryptBlock(block, 0);
+            }
+            Utils.unsignedLongToBytes(block[0], out, outPos + i);
+            Utils.unsignedLongToBytes(block[1], out, outPos + i + 8);
+        }
+
+        in.position(inPos + len);
+        out.position(outPos + len);
+    }
+
+    private static void checkLength(int len) {
+        if (len % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("Length must be a multiple of " + BLOCK_SIZE + " bytes, got " + len);
+        }
+    }
+}
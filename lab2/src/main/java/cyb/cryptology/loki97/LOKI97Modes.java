@@ -0,0 +1,338 @@
+package cyb.cryptology.loki97;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* LOKI97 under the ECB, CBC, CFB, OFB and CTR modes of operation with optional PKCS#7 padding.
+ECB, CTR and CBC decryption have no dependency between blocks, inputs of at least
+parallelThreshold bytes are split into chunks processed on the common ForkJoinPool. */
+public abstract class LOKI97Modes {
+    private static final int BLOCK_SIZE = LOKI97Key.BLOCK_SIZE;
+    /* Smallest number of blocks handed to one parallel task (16 KB) */
+    private static final int MIN_CHUNK_BLOCKS = 1024;
+
+    private static volatile int parallelThreshold = 256 * 1024;
+
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /* Inputs of at least this many bytes are processed in parallel where the mode allows it */
+    public static void setParallelThreshold(int bytes) {
+        if (bytes < BLOCK_SIZE) {
+            throw new IllegalArgumentException("Parallel threshold must be at least one block, got " + bytes);
+        }
+        parallelThreshold = bytes;
+    }
+
+    /* iv is 16 bytes, ignored (may be null) for ECB. The result is padded to a multiple of 16 bytes for PKCS7. */
+    public static byte[] encrypt(Mode mode, Padding padding, LOKI97Key key, byte[] iv, byte[] message) {
+        long[] register = initRegister(mode, iv);
+        int length = message.length;
+
+        if (padding == Padding.PKCS7) {
+            length = pkcs7PaddedLength(length);
+        } else if (!mode.isStreamMode()) {
+            checkBlocks(length);
+        }
+
+        byte[] result = Arrays.copyOf(message, length);
+        if (padding == Padding.PKCS7) {
+            pkcs7Pad(result, message.length, length);
+        }
+        process(mode, true, key, register, result, 0, result, 0, length);
+
+        return result;
+    }
+
+    /* Reverses encrypt(), a corrupted PKCS#7 padding is reported with IllegalArgumentException */
+    public static byte[] decrypt(Mode mode, Padding padding, LOKI97Key key, byte[] iv, byte[] cipher) {
+        long[] register = initRegister(mode, iv);
+
+        if (padding == Padding.PKCS7 || !mode.isStreamMode()) {
+            checkBlocks(cipher.length);
+        }
+
+        byte[] result = new byte[cipher.length];
+        process(mode, false, key, register, cipher, 0, result, 0, cipher.length);
+
+        if (padding == Padding.PKCS7) {
+            return Arrays.copyOf(result, pkcs7UnpaddedLength(result, 0, result.length));
+        }
+        return result;
+    }
+
+    /* Chaining register holding the IV: previous cipher block for CBC and CFB, previous
+    keystream block for OFB and the counter for CTR */
+    static long[] initRegister(Mode mode, byte[] iv) {
+        long[] register = new long[2];
+        if (!mode.needsIv()) {
+            return register;
+        }
+        if (iv == null || iv.length != BLOCK_SIZE) {
+            throw new IllegalArgumentException("Mode " + mode + " needs a " + BLOCK_SIZE + "-byte IV");
+        }
+
+        register[0] = Utils.bytesToUnsignedLong(iv, 0);
+        register[1] = Utils.bytesToUnsignedLong(iv, 8);
+        return register;
+    }
+
+    /* Processes len bytes from in[inOff] into out[outOff] and advances register, so that the next call
+    continues the same message. in and out may be the same array at the same offset. len must be a multiple
+    of BLOCK_SIZE except for the last call of a stream mode. */
+    static void process(Mode mode, boolean encrypt, LOKI97Key key, long[] register,
+                        byte[] in, int inOff, byte[] out, int outOff, int len) {
+        process(mode, encrypt, key, register, ByteBuffer.wrap(in), inOff, ByteBuffer.wrap(out), outOff, len);
+    }
+
+    /* Same as above for heap or direct buffers, addressed by absolute index, positions are left untouched */
+    static void process(Mode mode, boolean encrypt, LOKI97Key key, long[] register,
+                        ByteBuffer in, int inOff, ByteBuffer out, int outOff, int len) {
+        if (!mode.isStreamMode()) {
+            checkBlocks(len);
+        }
+
+        boolean independentBlocks = mode == Mode.ECB || mode == Mode.CTR || mode == Mode.CBC && !encrypt;
+        if (independentBlocks && len >= parallelThreshold && len / BLOCK_SIZE >= 2 * MIN_CHUNK_BLOCKS) {
+            processParallel(mode, encrypt, key, register, in, inOff, out, outOff, len);
+        } else {
+            processSequential(mode, encrypt, key, register, in, inOff, out, outOff, len);
+        }
+    }
+
+    private static void processSequential(Mode mode, boolean encrypt, LOKI97Key key, long[] register,
+                                          ByteBuffer in, int inOff, ByteBuffer out, int outOff, int len) {
+        long[] block = new long[2];
+        long x0, x1;
+        int full = len - len % BLOCK_SIZE;
+
+        for (int i = 0; i < full; i += BLOCK_SIZE) {
+            x0 = Utils.bytesToUnsignedLong(in, inOff + i);
+            x1 = Utils.bytesToUnsignedLong(in, inOff + i + 8);
+
+            switch (mode) {
+                case ECB:
+                    block[0] = x0;
+                    block[1] = x1;
+                    if (encrypt) {
+                        key.encryptBlock(block, 0);
+                    } else {
+                        key.decryptBlock(block, 0);
+                    }
+                    break;
+                case CBC:
+                    if (encrypt) {
+                        block[0] = x0 ^ register[0];
+                        block[1] = x1 ^ register[1];
+                        key.encryptBlock(block, 0);
+                        register[0] = block[0];
+                        register[1] = block[1];
+                    } else {
+                        block[0] = x0;
+                        block[1] = x1;
+                        key.decryptBlock(block, 0);
+                        block[0] ^= register[0];
+                        block[1] ^= register[1];
+                        register[0] = x0;
+                        register[1] = x1;
+                    }
+                    break;
+                case CFB:
+                    block[0] = register[0];
+                    block[1] = register[1];
+                    key.encryptBlock(block, 0);
+                    block[0] ^= x0;
+                    block[1] ^= x1;
+                    // feedback is always the cipher block
+                    register[0] = encrypt ? block[0] : x0;
+                    register[1] = encrypt ? block[1] : x1;
+                    break;
+                case OFB:
+                    key.encryptBlock(register, 0);
+                    block[0] = x0 ^ register[0];
+                    block[1] = x1 ^ register[1];
+                    break;
+                default:
+                    // CTR
+                    block[0] = register[0];
+                    block[1] = register[1];
+                    key.encryptBlock(block, 0);
+                    block[0] ^= x0;
+                    block[1] ^= x1;
+                    addToCounter(register, 1);
+                    break;
+            }
+
+            Utils.unsignedLongToBytes(block[0], out, outOff + i);
+            Utils.unsignedLongToBytes(block[1], out, outOff + i + 8);
+        }
+
+        if (full < len) {
+            // final partial block of a stream mode: only the leading keystream bytes are used
+            if (mode == Mode.OFB) {
+                key.encryptBlock(register, 0);
+                block[0] = register[0];
+                block[1] = register[1];
+            } else {
+                block[0] = register[0];
+                block[1] = register[1];
+                key.encryptBlock(block, 0);
+                if (mode == Mode.CTR) {
+                    addToCounter(register, 1);
+                }
+            }
+
+            for (int k = 0; k < len - full; k++) {
+                out.put(outOff + full + k, (byte) (in.get(inOff + full + k) ^ block[k >>> 3] >>> (56 - 8 * (k & 7))));
+            }
+        }
+    }
+
+    private static void processParallel(Mode mode, boolean encrypt, LOKI97Key key, long[] register,
+                                        ByteBuffer in, int inOff, ByteBuffer out, int outOff, int len) {
+        int blocks = len / BLOCK_SIZE;
+        int full = blocks * BLOCK_SIZE;
+        int tasks = 4 * ForkJoinPool.getCommonPoolParallelism();
+        int chunkBlocks = Math.max(MIN_CHUNK_BLOCKS, (blocks + tasks - 1) / tasks);
+        int chunks = (blocks + chunkBlocks - 1) / chunkBlocks;
+
+        // registers at the start of every chunk, taken before any chunk can overwrite its input in place
+        long[] registers = new long[2 * chunks];
+        for (int c = 0; c < chunks; c++) {
+            int start = c * chunkBlocks;
+            if (mode == Mode.CTR) {
+                registers[2 * c] = register[0];
+                registers[2 * c + 1] = register[1];
+                addToCounter(registers, 2 * c, start);
+            } else if (mode == Mode.CBC) {
+                if (start == 0) {
+                    registers[0] = register[0];
+                    registers[1] = register[1];
+                } else {
+                    registers[2 * c] = Utils.bytesToUnsignedLong(in, inOff + (start - 1) * BLOCK_SIZE);
+                    registers[2 * c + 1] = Utils.bytesToUnsignedLong(in, inOff + (start - 1) * BLOCK_SIZE + 8);
+                }
+            }
+        }
+
+        long last0 = 0, last1 = 0;
+        if (mode == Mode.CBC) {
+            last0 = Utils.bytesToUnsignedLong(in, inOff + full - BLOCK_SIZE);
+            last1 = Utils.bytesToUnsignedLong(in, inOff + full - BLOCK_SIZE + 8);
+        }
+
+        ForkJoinPool.commonPool().invoke(new ChunkTask(mode, encrypt, key, registers, chunkBlocks, blocks,
+                in, inOff, out, outOff, 0, chunks));
+
+        if (mode == Mode.CTR) {
+            addToCounter(register, 0, blocks);
+        } else if (mode == Mode.CBC) {
+            register[0] = last0;
+            register[1] = last1;
+        }
+
+        if (full < len) {
+            processSequential(mode, encrypt, key, register, in, inOff + full, out, outOff + full, len - full);
+        }
+    }
+
+    /* Processes chunks [from, to), splitting the range in half until a single chunk is left */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Mode mode;
+        private final boolean encrypt;
+        private final LOKI97Key key;
+        private final long[] registers;
+        private final int chunkBlocks;
+        private final int blocks;
+        private final ByteBuffer in;
+        private final int inOff;
+        private final ByteBuffer out;
+        private final int outOff;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Mode mode, boolean encrypt, LOKI97Key key, long[] registers, int chunkBlocks, int blocks,
+                  ByteBuffer in, int inOff, ByteBuffer out, int outOff, int from, int to) {
+            this.mode = mode;
+            this.encrypt = encrypt;
+            this.key = key;
+            this.registers = registers;
+            this.chunkBlocks = chunkBlocks;
+            this.blocks = blocks;
+            this.in = in;
+            this.inOff = inOff;
+            this.out = out;
+            this.outOff = outOff;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(mode, encrypt, key, registers, chunkBlocks, blocks, in, inOff, out, outOff,
+                                from, middle),
+                        new ChunkTask(mode, encrypt, key, registers, chunkBlocks, blocks, in, inOff, out, outOff,
+                                middle, to));
+                return;
+            }
+
+            int start = from * chunkBlocks * BLOCK_SIZE;
+            int length = (Math.min(blocks, (from + 1) * chunkBlocks) - from * chunkBlocks) * BLOCK_SIZE;
+            long[] register = {registers[2 * from], registers[2 * from + 1]};
+            processSequential(mode, encrypt, key, register, in, inOff + start, out, outOff + start, length);
+        }
+    }
+
+    /* Adds n to the 128-bit big-endian counter held in register */
+    static void addToCounter(long[] register, long n) {
+        addToCounter(register, 0, n);
+    }
+
+    private static void addToCounter(long[] register, int offset, long n) {
+        long low = register[offset + 1] + n;
+        if (Long.compareUnsigned(low, register[offset + 1]) < 0) {
+            register[offset]++;
+        }
+        register[offset + 1] = low;
+    }
+
+    static int pkcs7PaddedLength(int length) {
+        return (length / BLOCK_SIZE + 1) * BLOCK_SIZE;
+    }
+
+    /* Fills bytes [from, to) with the pad value to - from */
+    static void pkcs7Pad(byte[] bytes, int from, int to) {
+        Arrays.fill(bytes, from, to, (byte) (to - from));
+    }
+
+    /* Returns the message length without padding of the len bytes at bytes[offset], checking every pad byte */
+    static int pkcs7UnpaddedLength(byte[] bytes, int offset, int len) {
+        if (len == 0 || len % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("Invalid PKCS#7 padding");
+        }
+
+        int pad = bytes[offset + len - 1] & 0xFF;
+        if (pad == 0 || pad > BLOCK_SIZE) {
+            throw new IllegalArgumentException("Invalid PKCS#7 padding");
+        }
+        for (int i = len - pad; i < len; i++) {
+            if ((bytes[offset + i] & 0xFF) != pad) {
+                throw new IllegalArgumentException("Invalid PKCS#7 padding");
+            }
+        }
+
+        return len - pad;
+    }
+
+    private static void checkBlocks(int len) {
+        if (len % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("Length must be a multiple of " + BLOCK_SIZE + " bytes, got " + len);
+        }
+    }
+}
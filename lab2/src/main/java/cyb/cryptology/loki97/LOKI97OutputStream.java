@@ -0,0 +1,57 @@
+package cyb.cryptology.loki97;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/* Passes everything written through a LOKI97Cipher before it reaches the underlying stream.
+close() completes the message (adds padding when encrypting) and closes the underlying stream. */
+public class LOKI97OutputStream extends FilterOutputStream {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final LOKI97Cipher cipher;
+    private final byte[] output = new byte[CHUNK_SIZE + 2 * LOKI97Key.BLOCK_SIZE];
+    private boolean closed;
+
+    public LOKI97OutputStream(OutputStream out, LOKI97Cipher cipher) {
+        super(out);
+        this.cipher = cipher;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        while (len > 0) {
+            int chunk = Math.min(len, CHUNK_SIZE);
+            int written = cipher.update(b, off, chunk, output, 0);
+            out.write(output, 0, written);
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            int written = cipher.doFinal(output, 0);
+            out.write(output, 0, written);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            super.close();
+        }
+    }
+}
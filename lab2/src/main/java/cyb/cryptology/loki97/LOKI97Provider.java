@@ -0,0 +1,21 @@
+package cyb.cryptology.loki97;
+
+import java.security.Provider;
+import java.util.Map;
+
+/* Makes LOKI97 available through Cipher.getInstance("LOKI97/<mode>/<padding>", new LOKI97Provider()),
+or by name "CYB-LOKI97" once added with Security.addProvider() */
+public final class LOKI97Provider extends Provider {
+    private static final long serialVersionUID = 1L;
+    public static final String NAME = "CYB-LOKI97";
+
+    public LOKI97Provider() {
+        super(NAME, "1.0", "LOKI97 block cipher (ECB, CBC, CFB, OFB, CTR; NoPadding, PKCS5Padding)");
+
+        putService(new Service(this, "Cipher", "LOKI97", LOKI97CipherSpi.class.getName(), null,
+                Map.of(
+                        "SupportedModes", "ECB|CBC|CFB|OFB|CTR",
+                        "SupportedPaddings", "NOPADDING|PKCS5PADDING|PKCS7PADDING",
+                        "SupportedKeyFormats", "RAW")));
+    }
+}
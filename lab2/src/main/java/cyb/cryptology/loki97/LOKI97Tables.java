@@ -0,0 +1,116 @@
+package cyb.cryptology.loki97;
+
+public abstract class LOKI97Tables {
+    /* Size of S-box S1 (2^13) */
+    static final int S1_SIZE = 0x2000;
+    /* Generator polynomial for S-box S1 in GF(2^13) */
+    static final int S1_GEN = 0x2911;
+    static final int S1_MASK = S1_SIZE - 1;
+
+    /* Size of S-box S2 (2^11) */
+    static final int S2_SIZE = 0x800;
+    /* Generator polynomial for S-box S2 in GF(2^11) */
+    static final int S2_GEN = 0xAA7;
+    static final int S2_MASK = S2_SIZE - 1;
+
+    /* Table of permutation P */
+    static final int[] PERMUTATION_TABLE = {
+            56, 48,	40,	32,	24,	16,	8,  0,
+            57, 49, 41, 33, 25, 17, 9,  1,
+            58,	50,	42,	34,	26,	18,	10,	2,
+            59, 51, 43, 35, 27, 19, 11, 3,
+            60,	52,	44,	36,	28,	20,	12,	4,
+            61, 53, 45, 37, 29, 21, 13, 5,
+            62,	54,	46,	38,	30,	22,	14,	6,
+            63, 55, 47, 39, 31, 23, 15, 7
+    };
+
+    /* S1 outputs for every 13-bit input (8 KB), built once at class load */
+    static final byte[] S1 = new byte[S1_SIZE];
+    /* S2 outputs for every 11-bit input (2 KB), built once at class load */
+    static final byte[] S2 = new byte[S2_SIZE];
+
+    /* P applied to each byte of the input on its own, 8 tables of 256 words, indexed by (byte number << 8) | byte */
+    static final long[] P = new long[8 * 256];
+
+    /* Fused S-box and permutation tables: SPx_k[A] = P(Sx(A) placed in byte k), x is the S-box used by chunk k */
+    static final long[] SP1_0 = new long[S1_SIZE];
+    static final long[] SP2_1 = new long[S2_SIZE];
+    static final long[] SP1_2 = new long[S1_SIZE];
+    static final long[] SP2_3 = new long[S2_SIZE];
+    static final long[] SP2_4 = new long[S2_SIZE];
+    static final long[] SP1_5 = new long[S1_SIZE];
+    static final long[] SP2_6 = new long[S2_SIZE];
+    static final long[] SP1_7 = new long[S1_SIZE];
+
+    static {
+        for (int i = 0; i < S1_SIZE; i++) {
+            S1[i] = (byte) computeS1(i);
+        }
+        for (int i = 0; i < S2_SIZE; i++) {
+            S2[i] = (byte) computeS2(i);
+        }
+
+        for (int k = 0; k < 8; k++) {
+            for (int v = 0; v < 256; v++) {
+                P[k << 8 | v] = computeP((long) v << (56 - 8 * k));
+            }
+        }
+
+        for (int i = 0; i < S1_SIZE; i++) {
+            int s = S1[i] & 0xFF;
+            SP1_0[i] = P[0 << 8 | s];
+            SP1_2[i] = P[2 << 8 | s];
+            SP1_5[i] = P[5 << 8 | s];
+            SP1_7[i] = P[7 << 8 | s];
+        }
+        for (int i = 0; i < S2_SIZE; i++) {
+            int s = S2[i] & 0xFF;
+            SP2_1[i] = P[1 << 8 | s];
+            SP2_3[i] = P[3 << 8 | s];
+            SP2_4[i] = P[4 << 8 | s];
+            SP2_6[i] = P[6 << 8 | s];
+        }
+    }
+
+    /* S1(A) does cubing A by modulo S1_GEN, S1_GEN is irreducible polynomial in GF(2^13), output is 8-bit word */
+    public static int computeS1(int a) {
+        return Utils.pow3InField((a & S1_MASK) ^ S1_MASK, S1_GEN, S1_SIZE) & 0xFF;
+    }
+
+    /* S2(A) does cubing A by modulo S2_GEN, S2_GEN is irreducible polynomial in GF(2^11), output is 8-bit word */
+    public static int computeS2(int a) {
+        return Utils.pow3InField((a & S2_MASK) ^ S2_MASK, S2_GEN, S2_SIZE) & 0xFF;
+    }
+
+    /* Table lookup equivalent of computeS1(a) */
+    public static int s1(int a) {
+        return S1[a & S1_MASK] & 0xFF;
+    }
+
+    /* Table lookup equivalent of computeS2(a) */
+    public static int s2(int a) {
+        return S2[a & S2_MASK] & 0xFF;
+    }
+
+    /* P(A) computed bit by bit from PERMUTATION_TABLE */
+    public static long computeP(long a) {
+        long result = 0L;
+        long bit;
+
+        for (int i = 0; i < 64; i++) {
+            bit = (a & (0x01L << i)) >>> i;
+            result |= bit << PERMUTATION_TABLE[63 - i];
+        }
+
+        return result;
+    }
+
+    /* Table lookup equivalent of computeP(a), one lookup per input byte */
+    public static long p(long a) {
+        return P[         (int) (a >>> 56)        ] | P[1 << 8 | (int) (a >>> 48) & 0xFF] |
+               P[2 << 8 | (int) (a >>> 40) & 0xFF] | P[3 << 8 | (int) (a >>> 32) & 0xFF] |
+               P[4 << 8 | (int) (a >>> 24) & 0xFF] | P[5 << 8 | (int) (a >>> 16) & 0xFF] |
+               P[6 << 8 | (int) (a >>>  8) & 0xFF] | P[7 << 8 | (int)  a         & 0xFF];
+    }
+}
@@ -0,0 +1,19 @@
+package cyb.cryptology.loki97;
+
+/* Block cipher modes of operation supported by LOKI97Modes, CFB and OFB use full 128-bit feedback */
+public enum Mode {
+    ECB,
+    CBC,
+    CFB,
+    OFB,
+    CTR;
+
+    /* Stream modes only run the cipher forwards and accept messages of any length */
+    public boolean isStreamMode() {
+        return this == CFB || this == OFB || this == CTR;
+    }
+
+    public boolean needsIv() {
+        return this != ECB;
+    }
+}
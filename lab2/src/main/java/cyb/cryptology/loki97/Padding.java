@@ -0,0 +1,7 @@
+package cyb.cryptology.loki97;
+
+public enum Padding {
+    NONE,
+    /* 1 to 16 bytes, each equal to the number of bytes added */
+    PKCS7
+}
@@ -1,79 +1,62 @@
 package cyb.cryptology.loki97;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 public abstract class Utils {
+    /* Big-endian 64-bit views over byte arrays and byte buffers (heap or direct) */
+    private static final VarHandle LONG_ARRAY_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_BUFFER_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
     public static long bytesToUnsignedLong(byte[] bytes, int startIndex) {
-        long result = 0L;
+        return (long) LONG_ARRAY_VIEW.get(bytes, startIndex);
+    }
 
-        for (int i = 0; i < 8; i++) {
-            result |= (bytes[startIndex + i] & 0xFFL) << 8 * (7 - i);
-        }
+    public static long bytesToUnsignedLong(ByteBuffer buffer, int startIndex) {
+        return (long) LONG_BUFFER_VIEW.get(buffer, startIndex);
+    }
 
-        return result;
+    public static void unsignedLongToBytes(long number, byte[] bytes, int startIndex) {
+        LONG_ARRAY_VIEW.set(bytes, startIndex, number);
+    }
+
+    public static void unsignedLongToBytes(long number, ByteBuffer buffer, int startIndex) {
+        LONG_BUFFER_VIEW.set(buffer, startIndex, number);
     }
 
     public static byte[] unsignedLongToBytes(long number) {
         byte[] result = new byte[8];
-
-        for (int i = 0; i < 8; i++) {
-            result[i] = (byte) ((number >>> (7 - i) * 8) & 0xFF);
-        }
+        unsignedLongToBytes(number, result, 0);
 
         return result;
     }
 
+    /* Value of a hex digit of either case, IllegalArgumentException for anything else */
     public static int hexCharToInt(char ch) {
-        if (ch >= '0' && ch <= '9') {
-            return (ch - '0') & 0xF;
-        } else if (ch >= 'A' && ch <= 'F') {
-            return (ch - 'A' + 10) & 0xF;
-        } else if (ch >= 'a' && ch <= 'f') {
-            return (ch - 'a' + 10) & 0xF;
-        } else {
-            return 0;
-        }
+        return Hex.digit(ch);
     }
 
     public static char intToHexChar(int n) {
-        if (n >= 0 && n <= 9) {
-            return (char) ('0' + n);
-        } else if (n < 16) {
-            return (char) ('A' + (n - 10));
-        } else {
-            return ' ';
+        if (n < 0 || n > 15) {
+            throw new IllegalArgumentException("Not a hex digit value: " + n);
         }
+        return "0123456789ABCDEF".charAt(n);
     }
 
     public static long hexStringToUnsignedLong(String hex) {
-        long result = 0L;
-
-        for (int i = 0; i < 16; i++) {
-            result |= (((long) hexCharToInt(hex.charAt(i))) << 4 * (15 - i));
-        }
-
-        return result;
+        return Hex.decodeLong(hex, 0);
     }
 
     public static byte[] hexStringToBytes(String str) {
-        byte[] result = new byte[str.length() / 2];
-
-        for (int i = 0; i < result.length; i++) {
-            result[i] = (byte) ((hexCharToInt(str.charAt(2 * i)) << 4) |
-                                (hexCharToInt(str.charAt(2 * i + 1))));
-        }
-
-        return result;
+        return Hex.decode(str);
     }
 
     public static String bytesToHexString(byte[] bytes) {
-        StringBuilder builder = new StringBuilder();
-
-        for (byte b : bytes) {
-            builder.append(intToHexChar(b >>> 4 & 0xF));
-            builder.append(intToHexChar(b & 0xF));
-        }
-
-        return builder.toString();
+        return Hex.encode(bytes, true);
     }
 
     /* Returns the product of two binary numbers a and b, using the
@@ -0,0 +1,123 @@
+package cyb.cryptology.loki97_test;
+
+import cyb.cryptology.loki97.LOKI97;
+import cyb.cryptology.loki97.LOKI97FileCipher;
+import cyb.cryptology.loki97.LOKI97Key;
+import cyb.cryptology.loki97.LOKI97Tables;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/* Rough wall-clock comparison, run with: java -cp target/classes:target/test-classes cyb.cryptology.loki97_test.LOKI97Benchmark */
+public class LOKI97Benchmark {
+    private static final String KEY = "000102030405060708090A0B0C0D0E0F101112131415161718191A1B1C1D1E1F";
+
+    private static long sink;
+
+    public static void main(String[] args) throws ClassNotFoundException, IOException {
+        benchmarkSBoxes();
+        benchmarkPermutation();
+        benchmarkEncryption();
+        benchmarkFileCipher();
+    }
+
+    private static void benchmarkSBoxes() throws ClassNotFoundException {
+        // class initialisation builds both S-box tables, so this is the one-off startup cost
+        long start = System.nanoTime();
+        Class.forName(LOKI97Tables.class.getName(), true, LOKI97Benchmark.class.getClassLoader());
+        System.out.printf("S-box table initialisation: %.3f ms%n", (System.nanoTime() - start) / 1e6);
+
+        int rounds = 200;
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            long computed = time(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < 0x2000; i++) {
+                        sink += LOKI97Tables.computeS1(i);
+                    }
+                    for (int i = 0; i < 0x800; i++) {
+                        sink += LOKI97Tables.computeS2(i);
+                    }
+                }
+            });
+            long table = time(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < 0x2000; i++) {
+                        sink += LOKI97Tables.s1(i);
+                    }
+                    for (int i = 0; i < 0x800; i++) {
+                        sink += LOKI97Tables.s2(i);
+                    }
+                }
+            });
+            double lookups = rounds * (double) (0x2000 + 0x800);
+            System.out.printf("S-box evaluations: computed %.1f M/s, table %.1f M/s%n",
+                    lookups / computed * 1e3, lookups / table * 1e3);
+        }
+    }
+
+    private static void benchmarkPermutation() {
+        int count = 2_000_000;
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            long computed = time(() -> {
+                for (int i = 0; i < count; i++) {
+                    sink ^= LOKI97Tables.computeP(sink + i);
+                }
+            });
+            long table = time(() -> {
+                for (int i = 0; i < count; i++) {
+                    sink ^= LOKI97Tables.p(sink + i);
+                }
+            });
+            System.out.printf("Permutation P: bit loop %.1f M/s, table %.1f M/s%n",
+                    count / (double) computed * 1e3, count / (double) table * 1e3);
+        }
+    }
+
+    private static void benchmarkEncryption() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 4096; i++) {
+            builder.append("000102030405060708090A0B0C0D0E0F");
+        }
+        String message = builder.toString();
+        int bytes = message.length() / 2;
+
+        for (int warmUp = 0; warmUp < 5; warmUp++) {
+            long elapsed = time(() -> sink += LOKI97.encrypt(message, KEY).length());
+            System.out.printf("LOKI97.encrypt: %.2f MB/s%n", bytes / (elapsed / 1e9) / 1e6);
+        }
+
+        LOKI97Key key = new LOKI97Key(KEY);
+        byte[] data = new byte[1 << 20];
+        for (int warmUp = 0; warmUp < 5; warmUp++) {
+            long elapsed = time(() -> key.encrypt(data, 0, data, 0, data.length));
+            System.out.printf("LOKI97Key.encrypt(byte[]): %.2f MB/s%n", data.length / (elapsed / 1e9) / 1e6);
+        }
+    }
+
+    private static void benchmarkFileCipher() throws IOException {
+        Path input = Files.createTempFile("loki97", ".plain");
+        Path output = Files.createTempFile("loki97", ".cipher");
+        try {
+            Files.write(input, new byte[64 << 20]);
+            LOKI97Key key = new LOKI97Key(KEY);
+            byte[] iv = new byte[16];
+
+            for (int warmUp = 0; warmUp < 3; warmUp++) {
+                long start = System.nanoTime();
+                long size = LOKI97FileCipher.process(input, output, key, iv);
+                System.out.printf("LOKI97FileCipher (CTR, %d cores): %.1f MB/s%n",
+                        Runtime.getRuntime().availableProcessors(), size / ((System.nanoTime() - start) / 1e9) / 1e6);
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static long time(Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        return System.nanoTime() - start;
+    }
+}
@@ -1,8 +1,36 @@
 package cyb.cryptology.loki97_test;
 
+import cyb.cryptology.loki97.Hex;
 import cyb.cryptology.loki97.LOKI97;
+import cyb.cryptology.loki97.LOKI97Cipher;
+import cyb.cryptology.loki97.LOKI97FileCipher;
+import cyb.cryptology.loki97.LOKI97InputStream;
+import cyb.cryptology.loki97.LOKI97Key;
+import cyb.cryptology.loki97.LOKI97Modes;
+import cyb.cryptology.loki97.LOKI97OutputStream;
+import cyb.cryptology.loki97.LOKI97Provider;
+import cyb.cryptology.loki97.LOKI97Tables;
+import cyb.cryptology.loki97.Mode;
+import cyb.cryptology.loki97.Padding;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
 
 public class LOKI97Test {
 
@@ -35,4 +63,354 @@ public class LOKI97Test {
         decrypted = LOKI97.decrypt(cipher, key);
         Assertions.assertEquals(plain, decrypted);
     }
+
+    @Test
+    public void testSBoxTablesMatchFieldCubing() {
+        for (int i = 0; i < 0x2000; i++) {
+            Assertions.assertEquals(LOKI97Tables.computeS1(i), LOKI97Tables.s1(i));
+        }
+        for (int i = 0; i < 0x800; i++) {
+            Assertions.assertEquals(LOKI97Tables.computeS2(i), LOKI97Tables.s2(i));
+        }
+    }
+
+    @Test
+    public void testPermutationTableMatchesBitLoop() {
+        Random random = new Random(97);
+
+        for (int i = 0; i < 64; i++) {
+            Assertions.assertEquals(LOKI97Tables.computeP(1L << i), LOKI97Tables.p(1L << i));
+        }
+        for (int i = 0; i < 100000; i++) {
+            long a = random.nextLong();
+            Assertions.assertEquals(LOKI97Tables.computeP(a), LOKI97Tables.p(a));
+        }
+    }
+
+    @Test
+    public void testReusableKey() {
+        LOKI97Key key = new LOKI97Key("000102030405060708090A0B0C0D0E0F101112131415161718191A1B1C1D1E1F");
+        long[] block = {0x0001020304050607L, 0x08090A0B0C0D0E0FL};
+
+        key.encryptBlock(block, 0);
+        Assertions.assertArrayEquals(new long[]{0x75080E359F10FE64L, 0x0144B35C57128DADL}, block);
+        key.decryptBlock(block, 0);
+        Assertions.assertArrayEquals(new long[]{0x0001020304050607L, 0x08090A0B0C0D0E0FL}, block);
+
+        String plain = "000102030405060708090A0B0C0D0E0F101112131415161718191A1B1C1D1E1F";
+        Assertions.assertEquals(plain, LOKI97.decrypt(LOKI97.encrypt(plain, key), key));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LOKI97Key("0001020304050607"));
+        Assertions.assertEquals("", LOKI97.encrypt(plain, "0001020304050607"));
+    }
+
+    @Test
+    public void testBinaryApi() {
+        LOKI97Key key = new LOKI97Key("000102030405060708090A0B0C0D0E0F1011121314151617");
+        byte[] plain = new byte[160];
+        new Random(4).nextBytes(plain);
+
+        byte[] cipher = new byte[plain.length];
+        key.encrypt(plain, 0, cipher, 0, plain.length);
+        Assertions.assertEquals(LOKI97.encrypt(toHex(plain), key), toHex(cipher));
+
+        ByteBuffer heap = ByteBuffer.wrap(plain.clone());
+        key.encrypt(heap.duplicate(), heap);
+        Assertions.assertArrayEquals(cipher, heap.array());
+        Assertions.assertEquals(plain.length, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(plain.length + 3);
+        direct.position(3);
+        direct.put(cipher).position(3);
+        key.decrypt(direct.duplicate(), direct);
+        byte[] decrypted = new byte[plain.length];
+        direct.position(3);
+        direct.get(decrypted);
+        Assertions.assertArrayEquals(plain, decrypted);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> key.encrypt(plain, 0, cipher, 0, 15));
+    }
+
+    @Test
+    public void testModesRoundTrip() {
+        LOKI97Key key = new LOKI97Key("000102030405060708090A0B0C0D0E0F");
+        byte[] iv = new byte[16];
+        Random random = new Random(5);
+        random.nextBytes(iv);
+
+        for (Mode mode : Mode.values()) {
+            for (int length : new int[]{0, 1, 15, 16, 17, 100}) {
+                byte[] plain = new byte[length];
+                random.nextBytes(plain);
+
+                byte[] cipher = LOKI97Modes.encrypt(mode, Padding.PKCS7, key, iv, plain);
+                Assertions.assertEquals(length / 16 * 16 + 16, cipher.length);
+                Assertions.assertArrayEquals(plain, LOKI97Modes.decrypt(mode, Padding.PKCS7, key, iv, cipher));
+
+                if (mode.isStreamMode()) {
+                    cipher = LOKI97Modes.encrypt(mode, Padding.NONE, key, iv, plain);
+                    Assertions.assertEquals(length, cipher.length);
+                    Assertions.assertArrayEquals(plain, LOKI97Modes.decrypt(mode, Padding.NONE, key, iv, cipher));
+                }
+            }
+        }
+
+        // CBC: C1 = E(P1 ^ IV), C2 = E(P2 ^ C1)
+        byte[] plain = new byte[32];
+        random.nextBytes(plain);
+        byte[] expected = plain.clone();
+        for (int i = 0; i < 16; i++) {
+            expected[i] ^= iv[i];
+        }
+        key.encrypt(expected, 0, expected, 0, 16);
+        for (int i = 0; i < 16; i++) {
+            expected[16 + i] ^= expected[i];
+        }
+        key.encrypt(expected, 16, expected, 16, 16);
+        Assertions.assertArrayEquals(expected, LOKI97Modes.encrypt(Mode.CBC, Padding.NONE, key, iv, plain));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> LOKI97Modes.encrypt(Mode.CBC, Padding.NONE, key, iv, new byte[17]));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> LOKI97Modes.decrypt(Mode.CBC, Padding.PKCS7, key, iv, new byte[16]));
+
+        String hexPlain = "0001020304";
+        String hexIv = "000102030405060708090A0B0C0D0E0F";
+        Assertions.assertEquals(hexPlain, LOKI97.decrypt(LOKI97.encrypt(hexPlain, key, Mode.CBC, Padding.PKCS7, hexIv),
+                key, Mode.CBC, Padding.PKCS7, hexIv));
+    }
+
+    @Test
+    public void testParallelModesMatchSequential() {
+        LOKI97Key key = new LOKI97Key("000102030405060708090A0B0C0D0E0F");
+        byte[] iv = new byte[16];
+        Arrays.fill(iv, (byte) 0xFF);
+        byte[] plain = new byte[300000 + 5];
+        new Random(6).nextBytes(plain);
+        int threshold = LOKI97Modes.getParallelThreshold();
+
+        try {
+            for (Mode mode : new Mode[]{Mode.ECB, Mode.CBC, Mode.CTR}) {
+                LOKI97Modes.setParallelThreshold(Integer.MAX_VALUE);
+                byte[] sequentialCipher = LOKI97Modes.encrypt(mode, Padding.PKCS7, key, iv, plain);
+                byte[] sequentialPlain = LOKI97Modes.decrypt(mode, Padding.PKCS7, key, iv, sequentialCipher);
+
+                LOKI97Modes.setParallelThreshold(16);
+                byte[] parallelCipher = LOKI97Modes.encrypt(mode, Padding.PKCS7, key, iv, plain);
+                byte[] parallelPlain = LOKI97Modes.decrypt(mode, Padding.PKCS7, key, iv, parallelCipher);
+
+                Assertions.assertArrayEquals(sequentialCipher, parallelCipher);
+                Assertions.assertArrayEquals(sequentialPlain, parallelPlain);
+                Assertions.assertArrayEquals(plain, parallelPlain);
+            }
+
+            // CTR without padding leaves a partial last block and the counter carries into the high word
+            Arrays.fill(iv, 8, 16, (byte) 0xFF);
+            LOKI97Modes.setParallelThreshold(Integer.MAX_VALUE);
+            byte[] sequential = LOKI97Modes.encrypt(Mode.CTR, Padding.NONE, key, iv, plain);
+            LOKI97Modes.setParallelThreshold(16);
+            Assertions.assertArrayEquals(sequential, LOKI97Modes.encrypt(Mode.CTR, Padding.NONE, key, iv, plain));
+        } finally {
+            LOKI97Modes.setParallelThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testIncrementalCipher() {
+        LOKI97Key key = new LOKI97Key("000102030405060708090A0B0C0D0E0F");
+        byte[] iv = new byte[16];
+        Random random = new Random(7);
+        random.nextBytes(iv);
+        byte[] plain = new byte[1000];
+        random.nextBytes(plain);
+
+        for (Mode mode : Mode.values()) {
+            for (Padding padding : Padding.values()) {
+                int length = padding == Padding.NONE && !mode.isStreamMode() ? 992 : plain.length;
+                byte[] message = Arrays.copyOf(plain, length);
+                byte[] expected = LOKI97Modes.encrypt(mode, padding, key, iv, message);
+
+                LOKI97Cipher encryptor = new LOKI97Cipher(mode, padding, key, iv, true);
+                byte[] cipher = feedInPieces(encryptor, message, random);
+                Assertions.assertArrayEquals(expected, cipher);
+
+                LOKI97Cipher decryptor = new LOKI97Cipher(mode, padding, key, iv, false);
+                Assertions.assertArrayEquals(message, feedInPieces(decryptor, cipher, random));
+                // doFinal() resets, so the same object handles the next message
+                Assertions.assertArrayEquals(message, feedInPieces(decryptor, cipher, random));
+            }
+        }
+    }
+
+    private static byte[] feedInPieces(LOKI97Cipher cipher, byte[] input, Random random) {
+        byte[] output = new byte[cipher.getOutputSize(input.length)];
+        int written = 0;
+
+        for (int offset = 0; offset < input.length; ) {
+            int piece = Math.min(input.length - offset, random.nextInt(40));
+            written += cipher.update(input, offset, piece, output, written);
+            offset += piece;
+        }
+        written += cipher.doFinal(output, written);
+
+        return Arrays.copyOf(output, written);
+    }
+
+    @Test
+    public void testCipherStreams() throws IOException {
+        LOKI97Key key = new LOKI97Key("000102030405060708090A0B0C0D0E0F101112131415161718191A1B1C1D1E1F");
+        byte[] iv = new byte[16];
+        byte[] plain = new byte[100000 + 3];
+        new Random(8).nextBytes(plain);
+
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (OutputStream out = new LOKI97OutputStream(sink, new LOKI97Cipher(Mode.CBC, Padding.PKCS7, key, iv, true))) {
+            out.write(plain, 0, 10);
+            out.write(plain[10]);
+            out.write(plain, 11, plain.length - 11);
+        }
+        byte[] cipher = sink.toByteArray();
+        Assertions.assertArrayEquals(LOKI97Modes.encrypt(Mode.CBC, Padding.PKCS7, key, iv, plain), cipher);
+
+        try (InputStream in = new LOKI97InputStream(new ByteArrayInputStream(cipher),
+                new LOKI97Cipher(Mode.CBC, Padding.PKCS7, key, iv, false))) {
+            Assertions.assertEquals(plain[0] & 0xFF, in.read());
+            Assertions.assertEquals(9, in.skip(9));
+            byte[] rest = in.readAllBytes();
+            Assertions.assertArrayEquals(Arrays.copyOfRange(plain, 10, plain.length), rest);
+            Assertions.assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testJcaProvider() throws GeneralSecurityException {
+        byte[] keyBytes = new byte[32];
+        for (int i = 0; i < keyBytes.length; i++) {
+            keyBytes[i] = (byte) i;
+        }
+        SecretKeySpec key = new SecretKeySpec(keyBytes, "LOKI97");
+        LOKI97Key loki97Key = new LOKI97Key(keyBytes);
+        LOKI97Provider provider = new LOKI97Provider();
+
+        Cipher ecb = Cipher.getInstance("LOKI97/ECB/NoPadding", provider);
+        ecb.init(Cipher.ENCRYPT_MODE, key);
+        Assertions.assertEquals("75080E359F10FE640144B35C57128DAD",
+                toHex(ecb.doFinal(Arrays.copyOf(keyBytes, 16))));
+
+        byte[] iv = new byte[16];
+        byte[] plain = new byte[1000];
+        new Random(9).nextBytes(plain);
+        for (String transformation : new String[]{"LOKI97/CBC/PKCS5Padding", "LOKI97/CTR/NoPadding"}) {
+            Mode mode = transformation.contains("CBC") ? Mode.CBC : Mode.CTR;
+            Padding padding = transformation.contains("PKCS5") ? Padding.PKCS7 : Padding.NONE;
+            byte[] expected = LOKI97Modes.encrypt(mode, padding, loki97Key, iv, plain);
+
+            Cipher cipher = Cipher.getInstance(transformation, provider);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+            Assertions.assertArrayEquals(expected, cipher.doFinal(plain));
+
+            // direct buffers go through the native ByteBuffer overloads
+            ByteBuffer input = ByteBuffer.allocateDirect(expected.length);
+            input.put(expected).flip();
+            ByteBuffer output = ByteBuffer.allocateDirect(cipher.getOutputSize(expected.length));
+            cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+            ByteBuffer first = input.duplicate();
+            first.limit(333);
+            cipher.update(first, output);
+            input.position(333);
+            cipher.doFinal(input, output);
+            output.flip();
+            byte[] decrypted = new byte[output.remaining()];
+            output.get(decrypted);
+            Assertions.assertArrayEquals(plain, decrypted);
+        }
+
+        // output in the same heap or direct buffer as the input, shifted against it
+        byte[] message = Arrays.copyOf(plain, 160);
+        for (String transformation : new String[]{"LOKI97/ECB/NoPadding", "LOKI97/CBC/PKCS5Padding"}) {
+            Cipher cipher = Cipher.getInstance(transformation, provider);
+            for (boolean direct : new boolean[]{false, true}) {
+                for (int shift : new int[]{8, 16, -16, 0}) {
+                    if (transformation.contains("ECB")) {
+                        cipher.init(Cipher.ENCRYPT_MODE, key);
+                    } else {
+                        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+                    }
+                    byte[] expected = cipher.doFinal(message);
+
+                    ByteBuffer shared = direct ? ByteBuffer.allocateDirect(256) : ByteBuffer.allocate(256);
+                    ByteBuffer in = shared.duplicate().position(32).limit(32 + message.length);
+                    in.duplicate().put(message);
+                    ByteBuffer out = shared.duplicate().position(32 + shift);
+                    Assertions.assertEquals(expected.length, cipher.doFinal(in, out));
+
+                    byte[] actual = new byte[expected.length];
+                    shared.duplicate().position(32 + shift).get(actual);
+                    Assertions.assertArrayEquals(expected, actual, transformation + " " + direct + " " + shift);
+                }
+            }
+        }
+
+        Cipher cbc = Cipher.getInstance("LOKI97/CBC/PKCS5Padding", provider);
+        cbc.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+        Assertions.assertThrows(BadPaddingException.class, () -> cbc.doFinal(new byte[16]));
+    }
+
+    @Test
+    public void testFileCipher(@TempDir Path directory) throws IOException {
+        LOKI97Key key = new LOKI97Key("000102030405060708090A0B0C0D0E0F");
+        byte[] iv = new byte[16];
+        Arrays.fill(iv, (byte) 0x5A);
+        byte[] plain = new byte[1 << 20 | 7];
+        new Random(10).nextBytes(plain);
+
+        Path input = Files.write(directory.resolve("plain"), plain);
+        Path encrypted = directory.resolve("encrypted");
+        Path decrypted = directory.resolve("decrypted");
+
+        Assertions.assertEquals(plain.length, LOKI97FileCipher.process(input, encrypted, key, iv));
+        Assertions.assertArrayEquals(LOKI97Modes.encrypt(Mode.CTR, Padding.NONE, key, iv, plain),
+                Files.readAllBytes(encrypted));
+
+        LOKI97FileCipher.process(encrypted, decrypted, key, iv);
+        Assertions.assertArrayEquals(plain, Files.readAllBytes(decrypted));
+
+        Path empty = Files.write(directory.resolve("empty"), new byte[0]);
+        Assertions.assertEquals(0, LOKI97FileCipher.process(empty, decrypted, key, iv));
+        Assertions.assertEquals(0, Files.size(decrypted));
+
+        // the same file, also through another path, is refused and left as it was
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LOKI97FileCipher.process(input, input, key, iv));
+        Path sameFile = directory.resolve(".").resolve("plain");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> LOKI97FileCipher.process(input, sameFile, key, iv));
+        Assertions.assertArrayEquals(plain, Files.readAllBytes(input));
+    }
+
+    @Test
+    public void testHexCodec() {
+        byte[] bytes = {0x00, 0x01, (byte) 0xAB, (byte) 0xFF, 0x7F};
+        Assertions.assertEquals("0001ABFF7F", Hex.encode(bytes, true));
+        Assertions.assertEquals("0001abff7f", Hex.encode(bytes, false));
+        Assertions.assertArrayEquals(bytes, Hex.decode("0001aBfF7f"));
+
+        byte[] destination = new byte[4];
+        Assertions.assertEquals(2, Hex.decode(new StringBuilder("xxABcdxx"), 2, 6, destination, 1));
+        Assertions.assertArrayEquals(new byte[]{0, (byte) 0xAB, (byte) 0xCD, 0}, destination);
+        Assertions.assertEquals(0x0123456789ABCDEFL, Hex.decodeLong("--0123456789abcdef", 2));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Hex.decode("0G"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Hex.decode("\u01300"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Hex.decode("012"));
+        Assertions.assertFalse(Hex.isValid("00 1"));
+        Assertions.assertEquals("", LOKI97.encrypt("000102030405060708090A0B0C0D0E0Z", "000102030405060708090A0B0C0D0E0F"));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02X", b));
+        }
+        return builder.toString();
+    }
 }
@@ -0,0 +1,130 @@
+package cyb.cryptology.ripemd320;
+
+import java.util.Arrays;
+
+// table-driven hex codec, same as the one in the LOKI97 lab: encodes into caller-sized char[] or byte[] (ASCII)
+// destinations, decodes CharSequence ranges in place and rejects non-hex input with IllegalArgumentException
+public abstract class Hex {
+    // digit value of every char below 256, -1 for non-hex chars
+    private static final byte[] DECODE = new byte[256];
+    // two digits for every byte value, high digit first
+    private static final char[] UPPER = new char[512];
+    private static final char[] LOWER = new char[512];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            DECODE['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DECODE['A' + i] = (byte) (10 + i);
+            DECODE['a' + i] = (byte) (10 + i);
+        }
+
+        String upperDigits = "0123456789ABCDEF";
+        String lowerDigits = "0123456789abcdef";
+        for (int b = 0; b < 256; b++) {
+            UPPER[2 * b] = upperDigits.charAt(b >>> 4);
+            UPPER[2 * b + 1] = upperDigits.charAt(b & 0xF);
+            LOWER[2 * b] = lowerDigits.charAt(b >>> 4);
+            LOWER[2 * b + 1] = lowerDigits.charAt(b & 0xF);
+        }
+    }
+
+    // value of one hex digit
+    public static int digit(char ch) {
+        int value = ch < 256 ? DECODE[ch] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Not a hex digit: '" + ch + "'");
+        }
+        return value;
+    }
+
+    public static boolean isValid(CharSequence hex) {
+        return isValid(hex, 0, hex.length());
+    }
+
+    // true if [start, end) is an even number of hex digits
+    public static boolean isValid(CharSequence hex, int start, int end) {
+        if (((end - start) & 1) != 0) {
+            return false;
+        }
+        int bits = 0;
+        for (int i = start; i < end; i++) {
+            char ch = hex.charAt(i);
+            bits |= ch < 256 ? DECODE[ch] : -1;
+        }
+        return bits >= 0;
+    }
+
+    public static String encode(byte[] bytes, boolean upperCase) {
+        char[] chars = new char[2 * bytes.length];
+        encode(bytes, 0, bytes.length, chars, 0, upperCase);
+        return new String(chars);
+    }
+
+    // writes 2 * len chars into dst starting at dstOff
+    public static void encode(byte[] src, int srcOff, int len, char[] dst, int dstOff, boolean upperCase) {
+        char[] table = upperCase ? UPPER : LOWER;
+        for (int i = 0; i < len; i++) {
+            int index = (src[srcOff + i] & 0xFF) << 1;
+            dst[dstOff + 2 * i] = table[index];
+            dst[dstOff + 2 * i + 1] = table[index + 1];
+        }
+    }
+
+    // writes 2 * len ASCII digits into dst starting at dstOff
+    public static void encode(byte[] src, int srcOff, int len, byte[] dst, int dstOff, boolean upperCase) {
+        char[] table = upperCase ? UPPER : LOWER;
+        for (int i = 0; i < len; i++) {
+            int index = (src[srcOff + i] & 0xFF) << 1;
+            dst[dstOff + 2 * i] = (byte) table[index];
+            dst[dstOff + 2 * i + 1] = (byte) table[index + 1];
+        }
+    }
+
+    public static byte[] decode(CharSequence hex) {
+        return decode(hex, 0, hex.length());
+    }
+
+    public static byte[] decode(CharSequence hex, int start, int end) {
+        checkEven(start, end);
+        byte[] result = new byte[(end - start) / 2];
+        decode(hex, start, end, result, 0);
+        return result;
+    }
+
+    // decodes the chars [start, end) into dst starting at dstOff, returns the number of bytes written
+    public static int decode(CharSequence hex, int start, int end, byte[] dst, int dstOff) {
+        checkEven(start, end);
+        int length = (end - start) / 2;
+
+        for (int i = 0; i < length; i++) {
+            char high = hex.charAt(start + 2 * i);
+            char low = hex.charAt(start + 2 * i + 1);
+            int value = (high < 256 ? DECODE[high] << 4 : -1) | (low < 256 ? DECODE[low] : -1);
+            if (value < 0) {
+                int index = high < 256 && DECODE[high] >= 0 ? start + 2 * i + 1 : start + 2 * i;
+                throw new IllegalArgumentException("Not a hex digit at index " + index + ": '" + hex.charAt(index) + "'");
+            }
+            dst[dstOff + i] = (byte) value;
+        }
+
+        return length;
+    }
+
+    // decodes 16 hex digits starting at start as a big-endian 64-bit word
+    public static long decodeLong(CharSequence hex, int start) {
+        long result = 0L;
+        for (int i = 0; i < 16; i++) {
+            result = result << 4 | digit(hex.charAt(start + i));
+        }
+        return result;
+    }
+
+    private static void checkEven(int start, int end) {
+        if (((end - start) & 1) != 0) {
+            throw new IllegalArgumentException("Hex input has odd length " + (end - start));
+        }
+    }
+}
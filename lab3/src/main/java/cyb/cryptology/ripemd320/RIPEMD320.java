@@ -1,33 +1,53 @@
 package cyb.cryptology.ripemd320;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 public abstract class RIPEMD320 {
-    // indices for choosing 32-bit words in a message
-    private static final int[] R1 = {
+    private static final int FILE_CHUNK_SIZE = 64 << 10;
+
+    // initial values of digest words
+    private static final int[] H = {
+            0x67452301,
+            0xEFCDAB89,
+            0x98BADCFE,
+            0x10325476,
+            0xC3D2E1F0,
+            0x76543210,
+            0xFEDCBA98,
+            0x89ABCDEF,
+            0x01234567,
+            0x3C2D1E0F
+    };
+
+    // message word and rotation amount of every step of both lines, the schedule of RIPEMD320Batch.
+    // compress() has the same values written out, testBatch checks the two against each other
+    static final int[] R1 = {
             0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15,
             7, 4, 13, 1, 10, 6, 15, 3, 12, 0, 9, 5, 2, 14, 11, 8,
             3, 10, 14, 4, 9, 15, 8, 1, 2, 7, 0, 6, 13, 11, 5, 12,
             1, 9, 11, 10, 0, 8, 12, 4, 13, 3, 7, 15, 14, 5, 6, 2,
             4, 0, 5, 9, 7, 12, 2, 10, 14, 1, 3, 8, 11, 6, 15, 13
     };
-
-    private static final int[] R2 = {
+    static final int[] R2 = {
             5, 14, 7, 0, 9, 2, 11, 4, 13, 6, 15, 8, 1, 10, 3, 12,
             6, 11, 3, 7, 0, 13, 5, 10, 14, 15, 8, 12, 4, 9, 1, 2,
             15, 5, 1, 3, 7, 14, 6, 9, 11, 8, 12, 2, 10, 0, 4, 13,
             8, 6, 4, 1, 3, 11, 15, 0, 5, 12, 2, 13, 9, 7, 10, 14,
             12, 15, 10, 4, 1, 5, 8, 7, 6, 2, 13, 14, 0, 3, 9, 11
     };
-
-    // sums for left cyclic shift
-    private static final int[] S1 = {
+    static final int[] S1 = {
             11, 14, 15, 12, 5, 8, 7, 9, 11, 13, 14, 15, 6, 7, 9, 8,
             7, 6, 8, 13, 11, 9, 7, 15, 7, 12, 15, 9, 11, 7, 13, 12,
             11, 13, 6, 7, 14, 9, 13, 15, 14, 8, 13, 6, 5, 12, 7, 5,
             11, 12, 14, 15, 14, 15, 9, 8, 9, 14, 5, 6, 8, 6, 5, 12,
             9, 15, 5, 11, 6, 8, 13, 12, 5, 12, 13, 14, 11, 8, 5, 6
     };
-
-    private static final int[] S2 = {
+    static final int[] S2 = {
             8, 9, 9, 11, 13, 15, 15, 5, 7, 7, 8, 11, 14, 14, 12, 6,
             9, 13, 15, 7, 12, 8, 9, 11, 7, 7, 12, 7, 6, 15, 13, 11,
             9, 7, 15, 11, 8, 6, 6, 14, 12, 13, 5, 14, 13, 13, 7, 5,
@@ -35,203 +55,478 @@ public abstract class RIPEMD320 {
             8, 5, 12, 9, 12, 5, 14, 6, 8, 13, 6, 5, 15, 13, 11, 11
     };
 
-    // initial values of digest words
-    private static final int[] H = {
-            0x67452301,
-            0xEFCDAB89,
-            0x98BADCFE,
-            0x10325476,
-            0xC3D2E1F0,
-            0x76543210,
-            0xFEDCBA98,
-            0x89ABCDEF,
-            0x01234567,
-            0x3C2D1E0F
-    };
+    // added constants of the five rounds
+    static final int[] K1 = {0x00000000, 0x5A827999, 0x6ED9EBA1, 0x8F1BBCDC, 0xA953FD4E};
+    static final int[] K2 = {0x50A28BE6, 0x5C4DD124, 0x6D703EF3, 0x7A6D76E9, 0x00000000};
 
-    // constants for addition
-    private static int k1(int j) {
-        if (j <= 15) {
-            return 0x00000000;
-        } else if (j <= 31) {
-            return 0x5A827999;
-        } else if (j <= 47) {
-            return 0x6ED9EBA1;
-        } else if (j <= 63) {
-            return 0x8F1BBCDC;
-        } else {
-            return 0xA953FD4E;
-        }
+    // nonlinear bitwise functions of the five rounds
+    static int f1(int x, int y, int z) {
+        return x ^ y ^ z;
     }
 
-    private static int k2(int j) {
-        if (j <= 15) {
-            return 0x50A28BE6;
-        } else if (j <= 31) {
-            return 0x5C4DD124;
-        } else if (j <= 47) {
-            return 0x6D703EF3;
-        } else if (j <= 63) {
-            return 0x7A6D76E9;
-        } else {
-            return 0x00000000;
-        }
+    static int f2(int x, int y, int z) {
+        return (x & y) | (~x & z);
     }
 
-    // nonlinear bitwise functions
-    private static int f(int j, int x, int y, int z) {
-        if (j <= 15) {
-            return x ^ y ^ z;
-        } else if (j <= 31) {
-            return (x & y) | (~x & z);
-        } else if (j <= 47) {
-            return (x | ~y) ^ z;
-        } else if (j <= 63) {
-            return (x & z) | (y & ~z);
-        } else {
-            return x ^ (y | ~z);
-        }
+    static int f3(int x, int y, int z) {
+        return (x | ~y) ^ z;
     }
 
-    private static byte[] expand(byte[] bytes) {
-        int length = bytes.length;
-        // using bit length
-        int remainder = (length << 3) % 512;
-
-        int numToAdd;
-        // make length = 448 (mod 512)
-        if (remainder < 448) {
-            numToAdd = 448 - remainder;
-        } else {
-            numToAdd = 512 - remainder + 448;
-        }
-        // byte length
-        numToAdd >>= 3;
+    static int f4(int x, int y, int z) {
+        return (x & z) | (y & ~z);
+    }
 
-        // 8 additional bytes for length
-        int newLength = length + numToAdd + 8;
-        byte[] newBytes = new byte[newLength];
-        System.arraycopy(bytes, 0, newBytes, 0, length);
+    static int f5(int x, int y, int z) {
+        return x ^ (y | ~z);
+    }
 
-        newBytes[length] = (byte) 0x80;
-        for (int i = length + 1; i < newLength - 8; i++) {
-            newBytes[i] = 0x00;
-        }
+    // processes one 512-bit block of 16 little-endian words x, updating the 10 digest words h;
+    // the 80 steps of both lines are written out so that every word index, constant and shift is fixed
+    static void compress(int[] h, int[] x) {
+        int x0 = x[0];
+        int x1 = x[1];
+        int x2 = x[2];
+        int x3 = x[3];
+        int x4 = x[4];
+        int x5 = x[5];
+        int x6 = x[6];
+        int x7 = x[7];
+        int x8 = x[8];
+        int x9 = x[9];
+        int x10 = x[10];
+        int x11 = x[11];
+        int x12 = x[12];
+        int x13 = x[13];
+        int x14 = x[14];
+        int x15 = x[15];
 
-        // bit length
-        length = length << 3;
-        for (int i = newLength - 8; i < newLength; i++) {
-            newBytes[i] = (byte) (length & 0xFF);
-            length >>>= 8;
-        }
+        int a1 = h[0];
+        int b1 = h[1];
+        int c1 = h[2];
+        int d1 = h[3];
+        int e1 = h[4];
+        int a2 = h[5];
+        int b2 = h[6];
+        int c2 = h[7];
+        int d2 = h[8];
+        int e2 = h[9];
+        int t;
+
+        // first round, left line f1, right line f5
+        a1 = Integer.rotateLeft(a1 + f1(b1, c1, d1) + x0, 11) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f5(b2, c2, d2) + x5 + 0x50A28BE6, 8) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f1(a1, b1, c1) + x1, 14) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f5(a2, b2, c2) + x14 + 0x50A28BE6, 9) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f1(e1, a1, b1) + x2, 15) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f5(e2, a2, b2) + x7 + 0x50A28BE6, 9) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f1(d1, e1, a1) + x3, 12) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f5(d2, e2, a2) + x0 + 0x50A28BE6, 11) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f1(c1, d1, e1) + x4, 5) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f5(c2, d2, e2) + x9 + 0x50A28BE6, 13) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f1(b1, c1, d1) + x5, 8) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f5(b2, c2, d2) + x2 + 0x50A28BE6, 15) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f1(a1, b1, c1) + x6, 7) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f5(a2, b2, c2) + x11 + 0x50A28BE6, 15) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f1(e1, a1, b1) + x7, 9) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f5(e2, a2, b2) + x4 + 0x50A28BE6, 5) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f1(d1, e1, a1) + x8, 11) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f5(d2, e2, a2) + x13 + 0x50A28BE6, 7) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f1(c1, d1, e1) + x9, 13) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f5(c2, d2, e2) + x6 + 0x50A28BE6, 7) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f1(b1, c1, d1) + x10, 14) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f5(b2, c2, d2) + x15 + 0x50A28BE6, 8) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f1(a1, b1, c1) + x11, 15) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f5(a2, b2, c2) + x8 + 0x50A28BE6, 11) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f1(e1, a1, b1) + x12, 6) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f5(e2, a2, b2) + x1 + 0x50A28BE6, 14) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f1(d1, e1, a1) + x13, 7) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f5(d2, e2, a2) + x10 + 0x50A28BE6, 14) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f1(c1, d1, e1) + x14, 9) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f5(c2, d2, e2) + x3 + 0x50A28BE6, 12) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f1(b1, c1, d1) + x15, 8) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f5(b2, c2, d2) + x12 + 0x50A28BE6, 6) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        // the specification exchanges B and B' here, after 16 steps of rotating roles they are in a1 and a2
+        t = a1;
+        a1 = a2;
+        a2 = t;
+
+        // second round, left line f2, right line f4
+        e1 = Integer.rotateLeft(e1 + f2(a1, b1, c1) + x7 + 0x5A827999, 7) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f4(a2, b2, c2) + x6 + 0x5C4DD124, 9) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f2(e1, a1, b1) + x4 + 0x5A827999, 6) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f4(e2, a2, b2) + x11 + 0x5C4DD124, 13) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f2(d1, e1, a1) + x13 + 0x5A827999, 8) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f4(d2, e2, a2) + x3 + 0x5C4DD124, 15) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f2(c1, d1, e1) + x1 + 0x5A827999, 13) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f4(c2, d2, e2) + x7 + 0x5C4DD124, 7) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f2(b1, c1, d1) + x10 + 0x5A827999, 11) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f4(b2, c2, d2) + x0 + 0x5C4DD124, 12) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f2(a1, b1, c1) + x6 + 0x5A827999, 9) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f4(a2, b2, c2) + x13 + 0x5C4DD124, 8) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f2(e1, a1, b1) + x15 + 0x5A827999, 7) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f4(e2, a2, b2) + x5 + 0x5C4DD124, 9) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f2(d1, e1, a1) + x3 + 0x5A827999, 15) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f4(d2, e2, a2) + x10 + 0x5C4DD124, 11) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f2(c1, d1, e1) + x12 + 0x5A827999, 7) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f4(c2, d2, e2) + x14 + 0x5C4DD124, 7) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f2(b1, c1, d1) + x0 + 0x5A827999, 12) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f4(b2, c2, d2) + x15 + 0x5C4DD124, 7) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f2(a1, b1, c1) + x9 + 0x5A827999, 15) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f4(a2, b2, c2) + x8 + 0x5C4DD124, 12) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f2(e1, a1, b1) + x5 + 0x5A827999, 9) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f4(e2, a2, b2) + x12 + 0x5C4DD124, 7) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f2(d1, e1, a1) + x2 + 0x5A827999, 11) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f4(d2, e2, a2) + x4 + 0x5C4DD124, 6) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f2(c1, d1, e1) + x14 + 0x5A827999, 7) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f4(c2, d2, e2) + x9 + 0x5C4DD124, 15) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f2(b1, c1, d1) + x11 + 0x5A827999, 13) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f4(b2, c2, d2) + x1 + 0x5C4DD124, 13) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f2(a1, b1, c1) + x8 + 0x5A827999, 12) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f4(a2, b2, c2) + x2 + 0x5C4DD124, 11) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        // D and D' are exchanged, they are in b1 and b2
+        t = b1;
+        b1 = b2;
+        b2 = t;
+
+        // third round, left line f3, right line f3
+        d1 = Integer.rotateLeft(d1 + f3(e1, a1, b1) + x3 + 0x6ED9EBA1, 11) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f3(e2, a2, b2) + x15 + 0x6D703EF3, 9) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f3(d1, e1, a1) + x10 + 0x6ED9EBA1, 13) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f3(d2, e2, a2) + x5 + 0x6D703EF3, 7) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f3(c1, d1, e1) + x14 + 0x6ED9EBA1, 6) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f3(c2, d2, e2) + x1 + 0x6D703EF3, 15) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f3(b1, c1, d1) + x4 + 0x6ED9EBA1, 7) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f3(b2, c2, d2) + x3 + 0x6D703EF3, 11) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f3(a1, b1, c1) + x9 + 0x6ED9EBA1, 14) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f3(a2, b2, c2) + x7 + 0x6D703EF3, 8) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f3(e1, a1, b1) + x15 + 0x6ED9EBA1, 9) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f3(e2, a2, b2) + x14 + 0x6D703EF3, 6) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f3(d1, e1, a1) + x8 + 0x6ED9EBA1, 13) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f3(d2, e2, a2) + x6 + 0x6D703EF3, 6) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f3(c1, d1, e1) + x1 + 0x6ED9EBA1, 15) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f3(c2, d2, e2) + x9 + 0x6D703EF3, 14) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f3(b1, c1, d1) + x2 + 0x6ED9EBA1, 14) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f3(b2, c2, d2) + x11 + 0x6D703EF3, 12) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f3(a1, b1, c1) + x7 + 0x6ED9EBA1, 8) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f3(a2, b2, c2) + x8 + 0x6D703EF3, 13) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f3(e1, a1, b1) + x0 + 0x6ED9EBA1, 13) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f3(e2, a2, b2) + x12 + 0x6D703EF3, 5) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f3(d1, e1, a1) + x6 + 0x6ED9EBA1, 6) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f3(d2, e2, a2) + x2 + 0x6D703EF3, 14) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f3(c1, d1, e1) + x13 + 0x6ED9EBA1, 5) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f3(c2, d2, e2) + x10 + 0x6D703EF3, 13) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f3(b1, c1, d1) + x11 + 0x6ED9EBA1, 12) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f3(b2, c2, d2) + x0 + 0x6D703EF3, 13) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f3(a1, b1, c1) + x5 + 0x6ED9EBA1, 7) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f3(a2, b2, c2) + x4 + 0x6D703EF3, 7) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f3(e1, a1, b1) + x12 + 0x6ED9EBA1, 5) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f3(e2, a2, b2) + x13 + 0x6D703EF3, 5) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        // A and A' are exchanged, they are in c1 and c2
+        t = c1;
+        c1 = c2;
+        c2 = t;
+
+        // fourth round, left line f4, right line f2
+        c1 = Integer.rotateLeft(c1 + f4(d1, e1, a1) + x1 + 0x8F1BBCDC, 11) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f2(d2, e2, a2) + x8 + 0x7A6D76E9, 15) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f4(c1, d1, e1) + x9 + 0x8F1BBCDC, 12) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f2(c2, d2, e2) + x6 + 0x7A6D76E9, 5) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f4(b1, c1, d1) + x11 + 0x8F1BBCDC, 14) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f2(b2, c2, d2) + x4 + 0x7A6D76E9, 8) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f4(a1, b1, c1) + x10 + 0x8F1BBCDC, 15) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f2(a2, b2, c2) + x1 + 0x7A6D76E9, 11) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f4(e1, a1, b1) + x0 + 0x8F1BBCDC, 14) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f2(e2, a2, b2) + x3 + 0x7A6D76E9, 14) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f4(d1, e1, a1) + x8 + 0x8F1BBCDC, 15) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f2(d2, e2, a2) + x11 + 0x7A6D76E9, 14) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f4(c1, d1, e1) + x12 + 0x8F1BBCDC, 9) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f2(c2, d2, e2) + x15 + 0x7A6D76E9, 6) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f4(b1, c1, d1) + x4 + 0x8F1BBCDC, 8) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f2(b2, c2, d2) + x0 + 0x7A6D76E9, 14) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f4(a1, b1, c1) + x13 + 0x8F1BBCDC, 9) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f2(a2, b2, c2) + x5 + 0x7A6D76E9, 6) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f4(e1, a1, b1) + x3 + 0x8F1BBCDC, 14) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f2(e2, a2, b2) + x12 + 0x7A6D76E9, 9) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f4(d1, e1, a1) + x7 + 0x8F1BBCDC, 5) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f2(d2, e2, a2) + x2 + 0x7A6D76E9, 12) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f4(c1, d1, e1) + x15 + 0x8F1BBCDC, 6) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f2(c2, d2, e2) + x13 + 0x7A6D76E9, 9) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f4(b1, c1, d1) + x14 + 0x8F1BBCDC, 8) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f2(b2, c2, d2) + x9 + 0x7A6D76E9, 12) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f4(a1, b1, c1) + x5 + 0x8F1BBCDC, 6) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f2(a2, b2, c2) + x7 + 0x7A6D76E9, 5) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f4(e1, a1, b1) + x6 + 0x8F1BBCDC, 5) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f2(e2, a2, b2) + x10 + 0x7A6D76E9, 15) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f4(d1, e1, a1) + x2 + 0x8F1BBCDC, 12) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f2(d2, e2, a2) + x14 + 0x7A6D76E9, 8) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        // C and C' are exchanged, they are in d1 and d2
+        t = d1;
+        d1 = d2;
+        d2 = t;
 
-        return newBytes;
+        // fifth round, left line f5, right line f1
+        b1 = Integer.rotateLeft(b1 + f5(c1, d1, e1) + x4 + 0xA953FD4E, 9) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f1(c2, d2, e2) + x12, 8) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f5(b1, c1, d1) + x0 + 0xA953FD4E, 15) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f1(b2, c2, d2) + x15, 5) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f5(a1, b1, c1) + x5 + 0xA953FD4E, 5) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f1(a2, b2, c2) + x10, 12) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f5(e1, a1, b1) + x9 + 0xA953FD4E, 11) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f1(e2, a2, b2) + x4, 9) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f5(d1, e1, a1) + x7 + 0xA953FD4E, 6) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f1(d2, e2, a2) + x1, 12) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f5(c1, d1, e1) + x12 + 0xA953FD4E, 8) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f1(c2, d2, e2) + x5, 5) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f5(b1, c1, d1) + x2 + 0xA953FD4E, 13) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f1(b2, c2, d2) + x8, 14) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f5(a1, b1, c1) + x10 + 0xA953FD4E, 12) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f1(a2, b2, c2) + x7, 6) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f5(e1, a1, b1) + x14 + 0xA953FD4E, 5) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f1(e2, a2, b2) + x6, 8) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f5(d1, e1, a1) + x1 + 0xA953FD4E, 12) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f1(d2, e2, a2) + x2, 13) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f5(c1, d1, e1) + x3 + 0xA953FD4E, 13) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f1(c2, d2, e2) + x13, 6) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        a1 = Integer.rotateLeft(a1 + f5(b1, c1, d1) + x8 + 0xA953FD4E, 14) + e1;
+        c1 = Integer.rotateLeft(c1, 10);
+        a2 = Integer.rotateLeft(a2 + f1(b2, c2, d2) + x14, 5) + e2;
+        c2 = Integer.rotateLeft(c2, 10);
+        e1 = Integer.rotateLeft(e1 + f5(a1, b1, c1) + x11 + 0xA953FD4E, 11) + d1;
+        b1 = Integer.rotateLeft(b1, 10);
+        e2 = Integer.rotateLeft(e2 + f1(a2, b2, c2) + x0, 15) + d2;
+        b2 = Integer.rotateLeft(b2, 10);
+        d1 = Integer.rotateLeft(d1 + f5(e1, a1, b1) + x6 + 0xA953FD4E, 8) + c1;
+        a1 = Integer.rotateLeft(a1, 10);
+        d2 = Integer.rotateLeft(d2 + f1(e2, a2, b2) + x3, 13) + c2;
+        a2 = Integer.rotateLeft(a2, 10);
+        c1 = Integer.rotateLeft(c1 + f5(d1, e1, a1) + x15 + 0xA953FD4E, 5) + b1;
+        e1 = Integer.rotateLeft(e1, 10);
+        c2 = Integer.rotateLeft(c2 + f1(d2, e2, a2) + x9, 11) + b2;
+        e2 = Integer.rotateLeft(e2, 10);
+        b1 = Integer.rotateLeft(b1 + f5(c1, d1, e1) + x13 + 0xA953FD4E, 6) + a1;
+        d1 = Integer.rotateLeft(d1, 10);
+        b2 = Integer.rotateLeft(b2 + f1(c2, d2, e2) + x11, 11) + a2;
+        d2 = Integer.rotateLeft(d2, 10);
+        // E and E' are exchanged, after 80 steps the roles are back in place
+        t = e1;
+        e1 = e2;
+        e2 = t;
+
+        h[0] += a1;
+        h[1] += b1;
+        h[2] += c1;
+        h[3] += d1;
+        h[4] += e1;
+        h[5] += a2;
+        h[6] += b2;
+        h[7] += c2;
+        h[8] += d2;
+        h[9] += e2;
     }
 
-    private static int cyclicLeftShift(int operand, int shift) {
-        return operand << shift | operand >>> (32 - shift);
+    // fresh copy of the initial digest words
+    static int[] initialState() {
+        return H.clone();
     }
 
+    // lowercase hex digest of value encoded with the platform default charset
     public static String hash(String value) {
-        byte[] bytes = expand(value.getBytes());
-
-        int[] h = H.clone();
-        int a1, b1, c1, d1, e1, a2, b2, c2, d2, e2, t;
-        int[] x = new int[16];
-
-        // process 16 words of 32 bits each (16 integers)
-        for (int i = 0; i < bytes.length / 64; i++) {
-            a1 = h[0];
-            b1 = h[1];
-            c1 = h[2];
-            d1 = h[3];
-            e1 = h[4];
-            a2 = h[5];
-            b2 = h[6];
-            c2 = h[7];
-            d2 = h[8];
-            e2 = h[9];
-
-            for (int j = 0; j < 16; j++) {
-                // converse bytes into unsigned integers and then into one integer
-                x[j] = (bytes[i * 64 + j * 4] & 0xFF) |
-                        (bytes[i * 64 + j * 4 + 1] & 0xFF) << 8 |
-                        (bytes[i * 64 + j * 4 + 2] & 0xFF) << 16 |
-                        bytes[i * 64 + j * 4 + 3] << 24;
-            }
+        return hash(value, Charset.defaultCharset());
+    }
 
-            // rounds 0...15
-            for (int j = 0; j < 80; j++) {
-                t = a1 + f(j, b1, c1, d1) + x[R1[j]] + k1(j);
-                t = cyclicLeftShift(t, S1[j]) + e1;
-                a1 = e1;
-                e1 = d1;
-                d1 = cyclicLeftShift(c1, 10);
-                c1 = b1;
-                b1 = t;
-
-                t = a2 + f(79 - j, b2, c2, d2) + x[R2[j]] + k2(j);
-                t = cyclicLeftShift(t, S2[j]) + e2;
-                a2 = e2;
-                e2 = d2;
-                d2 = cyclicLeftShift(c2, 10);
-                c2 = b2;
-                b2 = t;
-
-                if (j == 15) {
-                    t = b1;
-                    b1 = b2;
-                    b2 = t;
-                } else if (j == 31) {
-                    t = d1;
-                    d1 = d2;
-                    d2 = t;
-                } else if (j == 47) {
-                    t = a1;
-                    a1 = a2;
-                    a2 = t;
-                } else if (j == 63) {
-                    t = c1;
-                    c1 = c2;
-                    c2 = t;
-                } else if (j == 79) {
-                    t = e1;
-                    e1 = e2;
-                    e2 = t;
-                }
-            }
+    // lowercase hex digest of value encoded with charset
+    public static String hash(String value, Charset charset) {
+        return Hex.encode(hash(value.getBytes(charset)), false);
+    }
 
-            h[0] += a1;
-            h[1] += b1;
-            h[2] += c1;
-            h[3] += d1;
-            h[4] += e1;
-            h[5] += a2;
-            h[6] += b2;
-            h[7] += c2;
-            h[8] += d2;
-            h[9] += e2;
-        }
+    public static byte[] hash(byte[] input) {
+        return hash(input, 0, input.length);
+    }
 
-        byte[] resultBytes = new byte[40];
-        for (int i = 0; i < resultBytes.length / 4; i++) {
-            resultBytes[i * 4] = (byte) h[i];
-            resultBytes[i * 4 + 1] = (byte) (h[i] >>> 8);
-            resultBytes[i * 4 + 2] = (byte) (h[i] >>> 16);
-            resultBytes[i * 4 + 3] = (byte) (h[i] >>> 24);
-        }
+    // raw 40-byte digest of len bytes of input starting at offset
+    public static byte[] hash(byte[] input, int offset, int len) {
+        byte[] result = new byte[RIPEMD320Digest.DIGEST_LENGTH];
+        hash(input, offset, len, result, 0);
+        return result;
+    }
+
+    // writes the 40-byte digest of len bytes of input starting at offset to output at outOff
+    public static void hash(byte[] input, int offset, int len, byte[] output, int outOff) {
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+        digest.update(input, offset, len);
+        digest.digest(output, outOff);
+    }
+
+    // raw digest of the remaining bytes of input, which is read in place and left at its limit
+    public static byte[] hash(ByteBuffer input) {
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+        digest.update(input);
+        return digest.digest();
+    }
+
+    // raw digest of a whole file, read in chunks through a direct buffer
+    public static byte[] hash(Path file) throws IOException {
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+        ByteBuffer chunk = ByteBuffer.allocateDirect(FILE_CHUNK_SIZE);
 
-        StringBuilder builder = new StringBuilder();
-        for (byte b : resultBytes) {
-            if (b == 0) {
-                builder.append("00");
-            } else if (b > 0 && b <= 15) {
-                builder.append("0").append(Integer.toHexString(b & 0xFF));
-            } else {
-                builder.append(Integer.toHexString(b & 0xFF));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(chunk) >= 0) {
+                chunk.flip();
+                digest.update(chunk);
+                chunk.clear();
             }
         }
 
-        return builder.toString();
+        return digest.digest();
     }
 }
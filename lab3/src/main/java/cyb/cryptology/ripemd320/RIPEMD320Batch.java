@@ -0,0 +1,298 @@
+package cyb.cryptology.ripemd320;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// multi-buffer RIPEMD-320: LANES independent messages are compressed in lockstep. every state word is an
+// int[LANES] and each step is one short loop over the lanes, which C2 can compile to SIMD instructions.
+// a lane that finishes its message is refilled with the next one, the last few messages run one at a time
+public abstract class RIPEMD320Batch {
+    public static final int LANES = 16;
+
+    private static final int BLOCK_SIZE = RIPEMD320Digest.BLOCK_SIZE;
+    private static final int DIGEST_LENGTH = RIPEMD320Digest.DIGEST_LENGTH;
+
+    private static final int[] H = RIPEMD320.initialState();
+
+    // writes the 40-byte digest of messages[i] to out at outOff + 40 * i
+    public static void hash(byte[][] messages, byte[] out, int outOff) {
+        ByteBuffer[] buffers = new ByteBuffer[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            buffers[i] = ByteBuffer.wrap(messages[i]);
+        }
+        hash(buffers, out, outOff);
+    }
+
+    // same for the remaining bytes of every buffer, positions are left unchanged
+    public static void hash(ByteBuffer[] messages, byte[] out, int outOff) {
+        int count = messages.length;
+        if (outOff < 0 || out.length - outOff < (long) count * DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Output array too short for " + count + " digests");
+        }
+
+        ByteBuffer[] sources = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = messages[i].slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        new Lanes(sources, ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN), outOff).run();
+    }
+
+    // working state of one batch call
+    private static final class Lanes {
+        private final ByteBuffer[] sources;
+        private final ByteBuffer out;
+        private final int outOff;
+
+        // chaining words, h[word][lane]
+        private final int[][] h = new int[10][LANES];
+        // message words of the current block, x[word][lane]
+        private final int[][] x = new int[16][LANES];
+        // working words, their roles move between the arrays from step to step
+        private final int[][] w = new int[10][LANES];
+
+        // message index (-1 for an idle lane), next block and block count of every lane
+        private final int[] message = new int[LANES];
+        private final int[] block = new int[LANES];
+        private final int[] blocks = new int[LANES];
+
+        private final byte[] tail = new byte[BLOCK_SIZE];
+        private final ByteBuffer tailView = ByteBuffer.wrap(tail).order(ByteOrder.LITTLE_ENDIAN);
+        private final int[] words = new int[16];
+        private int next;
+
+        Lanes(ByteBuffer[] sources, ByteBuffer out, int outOff) {
+            this.sources = sources;
+            this.out = out;
+            this.outOff = outOff;
+        }
+
+        void run() {
+            int active = 0;
+            for (int lane = 0; lane < LANES; lane++) {
+                if (start(lane)) {
+                    active++;
+                }
+            }
+
+            while (active == LANES) {
+                for (int lane = 0; lane < LANES; lane++) {
+                    load(message[lane], block[lane], words);
+                    for (int j = 0; j < 16; j++) {
+                        x[j][lane] = words[j];
+                    }
+                }
+                compress();
+
+                for (int lane = 0; lane < LANES; lane++) {
+                    if (++block[lane] == blocks[lane]) {
+                        store(message[lane], lane);
+                        if (!start(lane)) {
+                            active--;
+                        }
+                    }
+                }
+            }
+
+            // fewer messages left than lanes
+            int[] state = new int[10];
+            for (int lane = 0; lane < LANES; lane++) {
+                if (message[lane] < 0) {
+                    continue;
+                }
+                for (int i = 0; i < 10; i++) {
+                    state[i] = h[i][lane];
+                }
+                for (; block[lane] < blocks[lane]; block[lane]++) {
+                    load(message[lane], block[lane], words);
+                    RIPEMD320.compress(state, words);
+                }
+                for (int i = 0; i < 10; i++) {
+                    h[i][lane] = state[i];
+                }
+                store(message[lane], lane);
+            }
+        }
+
+        // puts the next message into lane, false if there is none left
+        private boolean start(int lane) {
+            if (next == sources.length) {
+                message[lane] = -1;
+                return false;
+            }
+
+            for (int i = 0; i < 10; i++) {
+                h[i][lane] = H[i];
+            }
+            message[lane] = next;
+            block[lane] = 0;
+            blocks[lane] = blocks(sources[next].remaining());
+            next++;
+            return true;
+        }
+
+        // 16 little-endian words of block number of the padded message index
+        private void load(int index, int number, int[] result) {
+            ByteBuffer source = sources[index];
+            int length = source.remaining();
+            int offset = number * BLOCK_SIZE;
+
+            if (offset + BLOCK_SIZE <= length) {
+                for (int j = 0; j < 16; j++) {
+                    result[j] = source.getInt(offset + 4 * j);
+                }
+                return;
+            }
+
+            // one of the last two blocks: end of the message, the 0x80 byte, zeros and finally the bit length
+            Arrays.fill(tail, (byte) 0);
+            if (offset <= length) {
+                source.get(offset, tail, 0, length - offset);
+                tail[length - offset] = (byte) 0x80;
+            }
+            if (number == blocks(length) - 1) {
+                tailView.putLong(BLOCK_SIZE - 8, (long) length << 3);
+            }
+            for (int j = 0; j < 16; j++) {
+                result[j] = tailView.getInt(4 * j);
+            }
+        }
+
+        private void store(int index, int lane) {
+            int position = outOff + index * DIGEST_LENGTH;
+            for (int i = 0; i < 10; i++) {
+                out.putInt(position + 4 * i, h[i][lane]);
+            }
+        }
+
+        // one block in every lane
+        private void compress() {
+            int[] a1 = w[0], b1 = w[1], c1 = w[2], d1 = w[3], e1 = w[4];
+            int[] a2 = w[5], b2 = w[6], c2 = w[7], d2 = w[8], e2 = w[9];
+            int[] t;
+
+            for (int i = 0; i < 10; i++) {
+                System.arraycopy(h[i], 0, w[i], 0, LANES);
+            }
+
+            for (int round = 0; round < 5; round++) {
+                for (int j = 16 * round; j < 16 * round + 16; j++) {
+                    step(round, a1, b1, c1, d1, e1, x[RIPEMD320.R1[j]], RIPEMD320.K1[round], RIPEMD320.S1[j],
+                            a2, b2, c2, d2, e2, x[RIPEMD320.R2[j]], RIPEMD320.K2[round], RIPEMD320.S2[j]);
+
+                    // the new B is the array written by the step, every other role moves one array along
+                    t = e1;
+                    e1 = d1;
+                    d1 = c1;
+                    c1 = b1;
+                    b1 = a1;
+                    a1 = t;
+
+                    t = e2;
+                    e2 = d2;
+                    d2 = c2;
+                    c2 = b2;
+                    b2 = a2;
+                    a2 = t;
+                }
+
+                // the lines exchange one word after every round
+                switch (round) {
+                    case 0:
+                        t = b1;
+                        b1 = b2;
+                        b2 = t;
+                        break;
+                    case 1:
+                        t = d1;
+                        d1 = d2;
+                        d2 = t;
+                        break;
+                    case 2:
+                        t = a1;
+                        a1 = a2;
+                        a2 = t;
+                        break;
+                    case 3:
+                        t = c1;
+                        c1 = c2;
+                        c2 = t;
+                        break;
+                    default:
+                        t = e1;
+                        e1 = e2;
+                        e2 = t;
+                }
+            }
+
+            add(h[0], a1);
+            add(h[1], b1);
+            add(h[2], c1);
+            add(h[3], d1);
+            add(h[4], e1);
+            add(h[5], a2);
+            add(h[6], b2);
+            add(h[7], c2);
+            add(h[8], d2);
+            add(h[9], e2);
+        }
+    }
+
+    // one step of both lines in every lane, writing A and rotating C in place; the left line uses the
+    // boolean function of its round, the right line the one of round 4 - round
+    private static void step(int round,
+                             int[] a1, int[] b1, int[] c1, int[] d1, int[] e1, int[] x1, int k1, int s1,
+                             int[] a2, int[] b2, int[] c2, int[] d2, int[] e2, int[] x2, int k2, int s2) {
+        switch (round) {
+            case 0:
+                for (int l = 0; l < LANES; l++) {
+                    a1[l] = Integer.rotateLeft(a1[l] + RIPEMD320.f1(b1[l], c1[l], d1[l]) + x1[l] + k1, s1) + e1[l];
+                    c1[l] = Integer.rotateLeft(c1[l], 10);
+                    a2[l] = Integer.rotateLeft(a2[l] + RIPEMD320.f5(b2[l], c2[l], d2[l]) + x2[l] + k2, s2) + e2[l];
+                    c2[l] = Integer.rotateLeft(c2[l], 10);
+                }
+                break;
+            case 1:
+                for (int l = 0; l < LANES; l++) {
+                    a1[l] = Integer.rotateLeft(a1[l] + RIPEMD320.f2(b1[l], c1[l], d1[l]) + x1[l] + k1, s1) + e1[l];
+                    c1[l] = Integer.rotateLeft(c1[l], 10);
+                    a2[l] = Integer.rotateLeft(a2[l] + RIPEMD320.f4(b2[l], c2[l], d2[l]) + x2[l] + k2, s2) + e2[l];
+                    c2[l] = Integer.rotateLeft(c2[l], 10);
+                }
+                break;
+            case 2:
+                for (int l = 0; l < LANES; l++) {
+                    a1[l] = Integer.rotateLeft(a1[l] + RIPEMD320.f3(b1[l], c1[l], d1[l]) + x1[l] + k1, s1) + e1[l];
+                    c1[l] = Integer.rotateLeft(c1[l], 10);
+                    a2[l] = Integer.rotateLeft(a2[l] + RIPEMD320.f3(b2[l], c2[l], d2[l]) + x2[l] + k2, s2) + e2[l];
+                    c2[l] = Integer.rotateLeft(c2[l], 10);
+                }
+                break;
+            case 3:
+                for (int l = 0; l < LANES; l++) {
+                    a1[l] = Integer.rotateLeft(a1[l] + RIPEMD320.f4(b1[l], c1[l], d1[l]) + x1[l] + k1, s1) + e1[l];
+                    c1[l] = Integer.rotateLeft(c1[l], 10);
+                    a2[l] = Integer.rotateLeft(a2[l] + RIPEMD320.f2(b2[l], c2[l], d2[l]) + x2[l] + k2, s2) + e2[l];
+                    c2[l] = Integer.rotateLeft(c2[l], 10);
+                }
+                break;
+            default:
+                for (int l = 0; l < LANES; l++) {
+                    a1[l] = Integer.rotateLeft(a1[l] + RIPEMD320.f5(b1[l], c1[l], d1[l]) + x1[l] + k1, s1) + e1[l];
+                    c1[l] = Integer.rotateLeft(c1[l], 10);
+                    a2[l] = Integer.rotateLeft(a2[l] + RIPEMD320.f1(b2[l], c2[l], d2[l]) + x2[l] + k2, s2) + e2[l];
+                    c2[l] = Integer.rotateLeft(c2[l], 10);
+                }
+        }
+    }
+
+    private static void add(int[] sum, int[] term) {
+        for (int l = 0; l < LANES; l++) {
+            sum[l] += term[l];
+        }
+    }
+
+    private static int blocks(int length) {
+        return (int) ((length + 8L) / BLOCK_SIZE + 1);
+    }
+}
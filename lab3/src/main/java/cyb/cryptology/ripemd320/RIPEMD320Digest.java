@@ -0,0 +1,177 @@
+package cyb.cryptology.ripemd320;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// incremental RIPEMD-320: input is compressed 64 bytes at a time as it arrives, only one partial block
+// and the 10 digest words are kept, so memory use does not depend on the message length
+public final class RIPEMD320Digest {
+    public static final int BLOCK_SIZE = 64;
+    public static final int DIGEST_LENGTH = 40;
+
+    private final int[] h;
+    private final int[] x = new int[16];
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private int buffered;
+    // message length in bytes
+    private long length;
+
+    public RIPEMD320Digest() {
+        h = RIPEMD320.initialState();
+    }
+
+    private RIPEMD320Digest(RIPEMD320Digest other) {
+        h = other.h.clone();
+        System.arraycopy(other.buffer, 0, buffer, 0, BLOCK_SIZE);
+        buffered = other.buffered;
+        length = other.length;
+    }
+
+    // independent digest that continues from the current state
+    public RIPEMD320Digest copy() {
+        return new RIPEMD320Digest(this);
+    }
+
+    // continues from the state of other without allocating, used to restart from precomputed states
+    void restore(RIPEMD320Digest other) {
+        System.arraycopy(other.h, 0, h, 0, h.length);
+        System.arraycopy(other.buffer, 0, buffer, 0, other.buffered);
+        buffered = other.buffered;
+        length = other.length;
+    }
+
+    public void update(byte input) {
+        buffer[buffered++] = input;
+        length++;
+        if (buffered == BLOCK_SIZE) {
+            compress(buffer, 0);
+            buffered = 0;
+        }
+    }
+
+    public void update(byte[] input) {
+        update(input, 0, input.length);
+    }
+
+    public void update(byte[] input, int offset, int len) {
+        length += len;
+
+        if (buffered > 0) {
+            int taken = Math.min(len, BLOCK_SIZE - buffered);
+            System.arraycopy(input, offset, buffer, buffered, taken);
+            buffered += taken;
+            offset += taken;
+            len -= taken;
+            if (buffered < BLOCK_SIZE) {
+                return;
+            }
+            compress(buffer, 0);
+            buffered = 0;
+        }
+
+        for (; len >= BLOCK_SIZE; offset += BLOCK_SIZE, len -= BLOCK_SIZE) {
+            compress(input, offset);
+        }
+
+        System.arraycopy(input, offset, buffer, 0, len);
+        buffered = len;
+    }
+
+    // consumes all remaining bytes of input, heap buffers are read through their array, direct ones are copied
+    // a block at a time
+    public void update(ByteBuffer input) {
+        if (input.hasArray()) {
+            int position = input.position();
+            update(input.array(), input.arrayOffset() + position, input.remaining());
+            input.position(input.limit());
+            return;
+        }
+
+        int len = input.remaining();
+        length += len;
+
+        if (buffered > 0) {
+            int taken = Math.min(len, BLOCK_SIZE - buffered);
+            input.get(buffer, buffered, taken);
+            buffered += taken;
+            len -= taken;
+            if (buffered < BLOCK_SIZE) {
+                return;
+            }
+            compress(buffer, 0);
+            buffered = 0;
+        }
+
+        for (; len >= BLOCK_SIZE; len -= BLOCK_SIZE) {
+            input.get(buffer, 0, BLOCK_SIZE);
+            compress(buffer, 0);
+        }
+
+        input.get(buffer, 0, len);
+        buffered = len;
+    }
+
+    // completes the message and resets the digest
+    public byte[] digest() {
+        byte[] result = new byte[DIGEST_LENGTH];
+        digest(result, 0);
+        return result;
+    }
+
+    // writes the 40-byte digest to output at offset and resets the digest
+    public void digest(byte[] output, int offset) {
+        if (output.length - offset < DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Output buffer needs " + DIGEST_LENGTH + " bytes");
+        }
+
+        // 0x80, zeros up to 56 (mod 64) bytes, then the bit length as a little-endian 64-bit word
+        long bitLength = length << 3;
+        buffer[buffered++] = (byte) 0x80;
+        if (buffered > BLOCK_SIZE - 8) {
+            Arrays.fill(buffer, buffered, BLOCK_SIZE, (byte) 0);
+            compress(buffer, 0);
+            buffered = 0;
+        }
+        Arrays.fill(buffer, buffered, BLOCK_SIZE - 8, (byte) 0);
+        for (int i = BLOCK_SIZE - 8; i < BLOCK_SIZE; i++) {
+            buffer[i] = (byte) bitLength;
+            bitLength >>>= 8;
+        }
+        compress(buffer, 0);
+
+        for (int i = 0; i < 10; i++) {
+            putLittleEndianInt(output, offset + 4 * i, h[i]);
+        }
+
+        reset();
+    }
+
+    public void reset() {
+        System.arraycopy(RIPEMD320.initialState(), 0, h, 0, h.length);
+        Arrays.fill(buffer, (byte) 0);
+        buffered = 0;
+        length = 0;
+    }
+
+    private void compress(byte[] block, int offset) {
+        for (int j = 0; j < 16; j++) {
+            x[j] = littleEndianInt(block, offset + 4 * j);
+        }
+        RIPEMD320.compress(h, x);
+    }
+
+    // plain shifts rather than VarHandle views of byte arrays or buffers: C2 on JDK 17 miscompiles view accesses
+    // in this class after warm-up (loop predication), which made repeated digests of the same input differ
+    private static int littleEndianInt(byte[] bytes, int index) {
+        return bytes[index] & 0xFF | (bytes[index + 1] & 0xFF) << 8 |
+               (bytes[index + 2] & 0xFF) << 16 | bytes[index + 3] << 24;
+    }
+
+    // byte stores for the same reason, the view store in digest() wrote zeros once compiled
+    private static void putLittleEndianInt(byte[] bytes, int index, int value) {
+        bytes[index] = (byte) value;
+        bytes[index + 1] = (byte) (value >>> 8);
+        bytes[index + 2] = (byte) (value >>> 16);
+        bytes[index + 3] = (byte) (value >>> 24);
+    }
+}
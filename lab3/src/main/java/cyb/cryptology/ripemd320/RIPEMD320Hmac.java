@@ -0,0 +1,114 @@
+package cyb.cryptology.ripemd320;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+// HMAC over RIPEMD-320 (RFC 2104 with a 64-byte block): H((K ^ opad) || H((K ^ ipad) || message)).
+// the key blocks K ^ ipad and K ^ opad are compressed once in the constructor and only the two resulting
+// chaining states are kept, every MAC restarts from them and so saves two compressions per message
+public final class RIPEMD320Hmac {
+    public static final String ALGORITHM = "HmacRIPEMD320";
+    public static final int MAC_LENGTH = RIPEMD320Digest.DIGEST_LENGTH;
+
+    private static final int BLOCK_SIZE = RIPEMD320Digest.BLOCK_SIZE;
+    private static final byte IPAD = 0x36;
+    private static final byte OPAD = 0x5C;
+
+    // states after the inner and outer key blocks, never updated after the constructor
+    private final RIPEMD320Digest innerState = new RIPEMD320Digest();
+    private final RIPEMD320Digest outerState = new RIPEMD320Digest();
+
+    private final RIPEMD320Digest inner = new RIPEMD320Digest();
+    private final RIPEMD320Digest outer = new RIPEMD320Digest();
+    private final byte[] innerDigest = new byte[MAC_LENGTH];
+
+    // keys longer than a block are hashed first, shorter ones are padded with zeros
+    public RIPEMD320Hmac(byte[] key) {
+        byte[] block = new byte[BLOCK_SIZE];
+        if (key.length > BLOCK_SIZE) {
+            inner.update(key);
+            inner.digest(block, 0);
+        } else {
+            System.arraycopy(key, 0, block, 0, key.length);
+        }
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            block[i] ^= IPAD;
+        }
+        innerState.update(block);
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            block[i] ^= IPAD ^ OPAD;
+        }
+        outerState.update(block);
+        Arrays.fill(block, (byte) 0);
+
+        inner.restore(innerState);
+    }
+
+    private RIPEMD320Hmac(RIPEMD320Hmac other) {
+        innerState.restore(other.innerState);
+        outerState.restore(other.outerState);
+        inner.restore(other.inner);
+    }
+
+    // independent MAC with the same key that continues the current message
+    public RIPEMD320Hmac copy() {
+        return new RIPEMD320Hmac(this);
+    }
+
+    public void update(byte input) {
+        inner.update(input);
+    }
+
+    public void update(byte[] input) {
+        inner.update(input);
+    }
+
+    public void update(byte[] input, int offset, int len) {
+        inner.update(input, offset, len);
+    }
+
+    public void update(ByteBuffer input) {
+        inner.update(input);
+    }
+
+    // completes the message and starts a new one with the same key
+    public byte[] doFinal() {
+        byte[] result = new byte[MAC_LENGTH];
+        doFinal(result, 0);
+        return result;
+    }
+
+    // writes the 40-byte MAC to output at offset and starts a new message with the same key
+    public void doFinal(byte[] output, int offset) {
+        if (output.length - offset < MAC_LENGTH) {
+            throw new IllegalArgumentException("Output buffer needs " + MAC_LENGTH + " bytes");
+        }
+
+        inner.digest(innerDigest, 0);
+        outer.restore(outerState);
+        outer.update(innerDigest);
+        outer.digest(output, offset);
+
+        reset();
+    }
+
+    // MAC of a whole message, any message fed by update() so far is dropped
+    public byte[] mac(byte[] message) {
+        reset();
+        inner.update(message);
+        return doFinal();
+    }
+
+    // true if tag is the MAC of message, the comparison takes the same time wherever the tags differ
+    public boolean verify(byte[] message, byte[] tag) {
+        return MessageDigest.isEqual(mac(message), tag);
+    }
+
+    // drops the message fed so far
+    public void reset() {
+        inner.restore(innerState);
+        Arrays.fill(innerDigest, (byte) 0);
+    }
+}
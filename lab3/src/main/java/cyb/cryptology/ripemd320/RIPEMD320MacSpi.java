@@ -0,0 +1,68 @@
+package cyb.cryptology.ripemd320;
+
+import javax.crypto.MacSpi;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.spec.AlgorithmParameterSpec;
+
+// JCA adapter over RIPEMD320Hmac, registered by RIPEMD320Provider as Mac "HmacRIPEMD320",
+// any key with a raw encoding (for example a SecretKeySpec) is accepted
+public final class RIPEMD320MacSpi extends MacSpi implements Cloneable {
+    private RIPEMD320Hmac hmac;
+
+    @Override
+    protected int engineGetMacLength() {
+        return RIPEMD320Hmac.MAC_LENGTH;
+    }
+
+    @Override
+    protected void engineInit(Key key, AlgorithmParameterSpec params)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        if (params != null) {
+            throw new InvalidAlgorithmParameterException(RIPEMD320Hmac.ALGORITHM + " takes no parameters");
+        }
+        byte[] encoded = key == null ? null : key.getEncoded();
+        if (encoded == null) {
+            throw new InvalidKeyException("Key has no raw encoding");
+        }
+        hmac = new RIPEMD320Hmac(encoded);
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        hmac.update(input);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        hmac.update(input, offset, len);
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        hmac.update(input);
+    }
+
+    @Override
+    protected byte[] engineDoFinal() {
+        return hmac.doFinal();
+    }
+
+    @Override
+    protected void engineReset() {
+        if (hmac != null) {
+            hmac.reset();
+        }
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        RIPEMD320MacSpi copy = (RIPEMD320MacSpi) super.clone();
+        if (hmac != null) {
+            copy.hmac = hmac.copy();
+        }
+        return copy;
+    }
+}
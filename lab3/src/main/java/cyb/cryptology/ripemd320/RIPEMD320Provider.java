@@ -0,0 +1,21 @@
+package cyb.cryptology.ripemd320;
+
+import java.security.Provider;
+import java.util.List;
+
+// makes RIPEMD-320 available through MessageDigest.getInstance("RIPEMD320", new RIPEMD320Provider()) and
+// its HMAC through Mac.getInstance("HmacRIPEMD320", ...), or by name "CYB-RIPEMD320" once added with
+// Security.addProvider()
+public final class RIPEMD320Provider extends Provider {
+    private static final long serialVersionUID = 1L;
+    public static final String NAME = "CYB-RIPEMD320";
+
+    public RIPEMD320Provider() {
+        super(NAME, "1.0", "RIPEMD-320 message digest and HMAC");
+
+        putService(new Service(this, "MessageDigest", "RIPEMD320", RIPEMD320Spi.class.getName(),
+                List.of("RIPEMD-320"), null));
+        putService(new Service(this, "Mac", RIPEMD320Hmac.ALGORITHM, RIPEMD320MacSpi.class.getName(),
+                List.of("HmacRIPEMD-320"), null));
+    }
+}
@@ -0,0 +1,57 @@
+package cyb.cryptology.ripemd320;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigestSpi;
+
+// JCA adapter over RIPEMD320Digest, registered by RIPEMD320Provider as MessageDigest "RIPEMD320",
+// ByteBuffer input (heap or direct) is read in place
+public final class RIPEMD320Spi extends MessageDigestSpi implements Cloneable {
+    private RIPEMD320Digest digest = new RIPEMD320Digest();
+
+    @Override
+    protected int engineGetDigestLength() {
+        return RIPEMD320Digest.DIGEST_LENGTH;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        digest.update(input);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        digest.update(input, offset, len);
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        digest.update(input);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        return digest.digest();
+    }
+
+    @Override
+    protected int engineDigest(byte[] output, int offset, int len) throws DigestException {
+        if (len < RIPEMD320Digest.DIGEST_LENGTH) {
+            throw new DigestException("Output buffer needs " + RIPEMD320Digest.DIGEST_LENGTH + " bytes");
+        }
+        digest.digest(output, offset);
+        return RIPEMD320Digest.DIGEST_LENGTH;
+    }
+
+    @Override
+    protected void engineReset() {
+        digest.reset();
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        RIPEMD320Spi copy = (RIPEMD320Spi) super.clone();
+        copy.digest = digest.copy();
+        return copy;
+    }
+}
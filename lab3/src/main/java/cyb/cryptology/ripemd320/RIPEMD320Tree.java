@@ -0,0 +1,191 @@
+package cyb.cryptology.ripemd320;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// RIPEMD320-TREE: parallel tree hash built on RIPEMD-320, NOT equal to the plain RIPEMD-320 digest of the input.
+// the input is cut into leaves of leafSize bytes (the last one may be shorter, empty input is one empty leaf),
+// a leaf hashes to RIPEMD320(0x00 || leaf), an interior node to RIPEMD320(0x01 || digests of up to fanOut
+// consecutive children), and levels are built until one node is left, which is the root. the root is always
+// an interior node, so it never collides with the digest of a leaf. leaves are hashed on the common ForkJoinPool
+//
+// usage: RIPEMD320Tree <file> [leaf size] [fan-out]
+public final class RIPEMD320Tree {
+    public static final String ALGORITHM = "RIPEMD320-TREE";
+    public static final int DEFAULT_LEAF_SIZE = 1 << 20;
+    public static final int DEFAULT_FAN_OUT = 16;
+
+    private static final int DIGEST_LENGTH = RIPEMD320Digest.DIGEST_LENGTH;
+    private static final byte LEAF = 0x00;
+    private static final byte NODE = 0x01;
+    // bytes of a file mapped at once, rounded down to whole leaves
+    private static final long WINDOW_SIZE = 256L << 20;
+    // leaves are split between tasks until a task has at most this many bytes
+    private static final long MIN_TASK_BYTES = 256 << 10;
+
+    private final int leafSize;
+    private final int fanOut;
+
+    public RIPEMD320Tree() {
+        this(DEFAULT_LEAF_SIZE, DEFAULT_FAN_OUT);
+    }
+
+    public RIPEMD320Tree(int leafSize, int fanOut) {
+        if (leafSize <= 0) {
+            throw new IllegalArgumentException("Leaf size must be positive: " + leafSize);
+        }
+        if (fanOut < 2) {
+            throw new IllegalArgumentException("Fan-out must be at least 2: " + fanOut);
+        }
+        this.leafSize = leafSize;
+        this.fanOut = fanOut;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: RIPEMD320Tree <file> [leaf size] [fan-out]");
+            System.exit(2);
+        }
+
+        int leafSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LEAF_SIZE;
+        int fanOut = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_FAN_OUT;
+        Path file = Paths.get(args[0]);
+
+        long start = System.nanoTime();
+        byte[] root = new RIPEMD320Tree(leafSize, fanOut).hash(file);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long size = Files.size(file);
+        System.out.println(Hex.encode(root, false) + "  " + file);
+        System.out.printf("%s, %d bytes in %.3f s (%.1f MB/s)%n", ALGORITHM, size, seconds, size / seconds / 1e6);
+    }
+
+    public int getLeafSize() {
+        return leafSize;
+    }
+
+    public int getFanOut() {
+        return fanOut;
+    }
+
+    public byte[] hash(byte[] data) {
+        return hash(ByteBuffer.wrap(data));
+    }
+
+    // root of the remaining bytes of data, the position is left unchanged
+    public byte[] hash(ByteBuffer data) {
+        ByteBuffer source = data.slice();
+        int leaves = leafCount(source.remaining());
+        byte[] digests = new byte[leaves * DIGEST_LENGTH];
+
+        hashLeaves(source, 0, leaves, digests);
+        return root(digests, leaves);
+    }
+
+    // root of the whole file, which is memory-mapped a window at a time
+    public byte[] hash(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int leaves = leafCount(size);
+            byte[] digests = new byte[leaves * DIGEST_LENGTH];
+
+            long window = Math.max(1, WINDOW_SIZE / leafSize) * leafSize;
+            int leaf = 0;
+            for (long position = 0; leaf < leaves; position += window) {
+                long length = Math.min(window, size - position);
+                ByteBuffer source = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int count = leafCount(length);
+
+                hashLeaves(source, leaf, count, digests);
+                leaf += count;
+            }
+
+            return root(digests, leaves);
+        }
+    }
+
+    private int leafCount(long length) {
+        long leaves = Math.max(1, (length + leafSize - 1) / leafSize);
+        if (leaves > Integer.MAX_VALUE / DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Input of " + length + " bytes has too many leaves, use a larger leaf size");
+        }
+        return (int) leaves;
+    }
+
+    // digests of the count leaves of source, stored as leaves first to first + count - 1
+    private void hashLeaves(ByteBuffer source, int first, int count, byte[] digests) {
+        LeafTask task = new LeafTask(source, first, digests, 0, count);
+        if ((long) count * leafSize <= MIN_TASK_BYTES) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+    }
+
+    // reduces the level of count digests to the root, one interior level at a time
+    private byte[] root(byte[] digests, int count) {
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+        do {
+            int parents = (count + fanOut - 1) / fanOut;
+            byte[] level = new byte[parents * DIGEST_LENGTH];
+
+            for (int i = 0; i < parents; i++) {
+                int children = Math.min(fanOut, count - i * fanOut);
+                digest.update(NODE);
+                digest.update(digests, i * fanOut * DIGEST_LENGTH, children * DIGEST_LENGTH);
+                digest.digest(level, i * DIGEST_LENGTH);
+            }
+
+            digests = level;
+            count = parents;
+        } while (count > 1);
+
+        return digests;
+    }
+
+    // hashes leaves [from, to) of source
+    private final class LeafTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final ByteBuffer source;
+        private final int first;
+        private final byte[] digests;
+        private final int from;
+        private final int to;
+
+        LeafTask(ByteBuffer source, int first, byte[] digests, int from, int to) {
+            this.source = source;
+            this.first = first;
+            this.digests = digests;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && (long) (to - from) * leafSize > MIN_TASK_BYTES) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LeafTask(source, first, digests, from, middle),
+                        new LeafTask(source, first, digests, middle, to));
+                return;
+            }
+
+            RIPEMD320Digest digest = new RIPEMD320Digest();
+            int length = source.limit();
+            for (int leaf = from; leaf < to; leaf++) {
+                int start = leaf * leafSize;
+                int end = (int) Math.min((long) start + leafSize, length);
+
+                digest.update(LEAF);
+                digest.update(source.duplicate().position(start).limit(end));
+                digest.digest(digests, (first + leaf) * DIGEST_LENGTH);
+            }
+        }
+    }
+}
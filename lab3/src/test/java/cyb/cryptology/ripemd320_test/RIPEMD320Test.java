@@ -1,8 +1,29 @@
 package cyb.cryptology.ripemd320_test;
 
+import cyb.cryptology.ripemd320.Hex;
 import cyb.cryptology.ripemd320.RIPEMD320;
+import cyb.cryptology.ripemd320.RIPEMD320Batch;
+import cyb.cryptology.ripemd320.RIPEMD320Digest;
+import cyb.cryptology.ripemd320.RIPEMD320Hmac;
+import cyb.cryptology.ripemd320.RIPEMD320Provider;
+import cyb.cryptology.ripemd320.RIPEMD320Tree;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
 
 public class RIPEMD320Test {
 
@@ -27,4 +48,294 @@ public class RIPEMD320Test {
                 "393e0df728c4ce3d79e7dcfd357d5c26f5c6d64c6d652dc53b6547b214ea9183e4f61c477ebf5cb0",
                 RIPEMD320.hash("The quick brown fox jumps over the lazy cog"));
     }
+
+    @Test
+    public void testJcaProvider() throws GeneralSecurityException, CloneNotSupportedException {
+        MessageDigest digest = MessageDigest.getInstance("RIPEMD320", new RIPEMD320Provider());
+        byte[] fox = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+
+        Assertions.assertEquals(
+                "e7660e67549435c62141e51c9ab1dcc3b1ee9f65c0b3e561ae8f58c5dba3d21997781cd1cc6fbc34",
+                toHex(digest.digest(fox)));
+
+        // direct buffer read in place, split across block boundaries
+        ByteBuffer direct = ByteBuffer.allocateDirect(fox.length);
+        direct.put(fox).flip();
+        digest.update(fox, 0, 5);
+        direct.position(5);
+        MessageDigest copy = (MessageDigest) digest.clone();
+        digest.update(direct);
+        Assertions.assertEquals(RIPEMD320.hash("The quick brown fox jumps over the lazy dog"), toHex(digest.digest()));
+        copy.update(fox, 5, fox.length - 5);
+        Assertions.assertEquals(RIPEMD320.hash("The quick brown fox jumps over the lazy dog"), toHex(copy.digest()));
+
+        // too short an output is reported the way MessageDigest callers expect
+        Assertions.assertThrows(DigestException.class, () -> digest.digest(new byte[50], 0, 39));
+        Assertions.assertEquals(40, digest.digest(new byte[50], 10, 40));
+
+        Random random = new Random(320);
+        for (int length : new int[]{55, 56, 63, 64, 65, 1000}) {
+            byte[] message = new byte[length];
+            for (int i = 0; i < length; i++) {
+                message[i] = (byte) ('a' + random.nextInt(26));
+            }
+            Assertions.assertEquals(RIPEMD320.hash(new String(message, StandardCharsets.US_ASCII)),
+                    toHex(digest.digest(message)));
+        }
+    }
+
+    @Test
+    public void testIncrementalDigest() {
+        byte[] fox = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+
+        for (byte b : fox) {
+            digest.update(b);
+        }
+        Assertions.assertEquals(
+                "e7660e67549435c62141e51c9ab1dcc3b1ee9f65c0b3e561ae8f58c5dba3d21997781cd1cc6fbc34",
+                toHex(digest.digest()));
+
+        // "a" repeated a million times, fed in uneven pieces through arrays and buffers
+        byte[] piece = new byte[1000];
+        Arrays.fill(piece, (byte) 'a');
+        ByteBuffer direct = ByteBuffer.allocateDirect(piece.length);
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0) {
+                digest.update(piece, 0, 337);
+                digest.update(piece, 337, piece.length - 337);
+            } else {
+                direct.clear();
+                direct.put(piece).flip();
+                digest.update(direct);
+            }
+        }
+        Assertions.assertEquals(
+                "bdee37f4371e20646b8b0d862dda16292ae36f40965e8c8509e63d1dbddecc503e2b63eb9245bb66",
+                toHex(digest.digest()));
+
+        // digest() resets
+        Assertions.assertEquals(
+                "22d65d5661536cdc75c1fdf5c6de7b41b9f27325ebc61e8557177d705a0ec880151c3a32a00899b8",
+                toHex(digest.digest()));
+    }
+
+    @Test
+    public void testRepeatedDigests() {
+        // C2 once miscompiled the output loop of digest() after warm-up and every later digest was zeros
+        byte[] message = new byte[1000];
+        for (int i = 0; i < message.length; i++) {
+            message[i] = (byte) i;
+        }
+        byte[] expected = Hex.decode(
+                "3bd4e658ef3fa4c88de177df5ea72c69c91d3f93567cd2323da7fe72c45c620a00cd41dbb7360967");
+
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+        for (int i = 0; i < 50000; i++) {
+            digest.update(message);
+            Assertions.assertArrayEquals(expected, digest.digest(), "digest " + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertArrayEquals(expected, RIPEMD320.hash(message), "hash " + i);
+        }
+
+        // the same through a direct buffer
+        ByteBuffer direct = ByteBuffer.allocateDirect(message.length);
+        direct.put(message);
+        for (int i = 0; i < 50000; i++) {
+            direct.clear();
+            digest.update(direct);
+            Assertions.assertArrayEquals(expected, digest.digest(), "direct " + i);
+        }
+    }
+
+    @Test
+    public void testByteOverloads(@TempDir Path directory) throws IOException {
+        String fox = "The quick brown fox jumps over the lazy dog";
+        String foxDigest = "e7660e67549435c62141e51c9ab1dcc3b1ee9f65c0b3e561ae8f58c5dba3d21997781cd1cc6fbc34";
+        byte[] bytes = fox.getBytes(StandardCharsets.US_ASCII);
+
+        Assertions.assertEquals(foxDigest, RIPEMD320.hash(fox, StandardCharsets.US_ASCII));
+        Assertions.assertEquals(foxDigest, toHex(RIPEMD320.hash(bytes)));
+
+        byte[] padded = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, padded, 3, bytes.length);
+        Assertions.assertEquals(foxDigest, toHex(RIPEMD320.hash(padded, 3, bytes.length)));
+
+        byte[] out = new byte[45];
+        RIPEMD320.hash(padded, 3, bytes.length, out, 5);
+        Assertions.assertEquals(foxDigest, toHex(Arrays.copyOfRange(out, 5, 45)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Assertions.assertEquals(foxDigest, toHex(RIPEMD320.hash(direct)));
+        Assertions.assertFalse(direct.hasRemaining());
+
+        // the charset decides the bytes that are hashed
+        String accented = "caf\u00e9";
+        Assertions.assertEquals(toHex(RIPEMD320.hash(accented.getBytes(StandardCharsets.UTF_8))),
+                RIPEMD320.hash(accented, StandardCharsets.UTF_8));
+        Assertions.assertNotEquals(RIPEMD320.hash(accented, StandardCharsets.UTF_8),
+                RIPEMD320.hash(accented, StandardCharsets.ISO_8859_1));
+
+        // a file spanning several read chunks
+        byte[] data = new byte[200_000];
+        new Random(15).nextBytes(data);
+        Path file = directory.resolve("data.bin");
+        Files.write(file, data);
+        Assertions.assertArrayEquals(RIPEMD320.hash(data), RIPEMD320.hash(file));
+    }
+
+    @Test
+    public void testBatch() {
+        // more messages than lanes, of lengths around the padding boundaries and spanning many blocks
+        Random random = new Random(12);
+        byte[][] messages = new byte[3 * RIPEMD320Batch.LANES + 5][];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new byte[i % 4 == 0 ? 55 + i % 10 : random.nextInt(1100)];
+            random.nextBytes(messages[i]);
+        }
+        messages[1] = new byte[0];
+
+        byte[] out = new byte[3 + messages.length * RIPEMD320Digest.DIGEST_LENGTH];
+        RIPEMD320Batch.hash(messages, out, 3);
+
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+        for (int i = 0; i < messages.length; i++) {
+            digest.update(messages[i]);
+            int from = 3 + i * RIPEMD320Digest.DIGEST_LENGTH;
+            Assertions.assertArrayEquals(digest.digest(),
+                    Arrays.copyOfRange(out, from, from + RIPEMD320Digest.DIGEST_LENGTH));
+        }
+
+        // slices of one direct buffer, positions stay where they were
+        ByteBuffer whole = ByteBuffer.allocateDirect(1000);
+        whole.put(messages[2], 0, Math.min(1000, messages[2].length));
+        ByteBuffer[] slices = new ByteBuffer[RIPEMD320Batch.LANES + 1];
+        for (int i = 0; i < slices.length; i++) {
+            slices[i] = whole.duplicate().position(i).limit(i + 50 * i);
+        }
+        byte[] sliceDigests = new byte[slices.length * RIPEMD320Digest.DIGEST_LENGTH];
+        RIPEMD320Batch.hash(slices, sliceDigests, 0);
+        for (int i = 0; i < slices.length; i++) {
+            Assertions.assertEquals(i, slices[i].position());
+            digest.update(slices[i].duplicate());
+            Assertions.assertArrayEquals(digest.digest(), Arrays.copyOfRange(sliceDigests,
+                    i * RIPEMD320Digest.DIGEST_LENGTH, (i + 1) * RIPEMD320Digest.DIGEST_LENGTH));
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> RIPEMD320Batch.hash(messages, new byte[messages.length], 0));
+    }
+
+    @Test
+    public void testTreeHash(@TempDir Path directory) throws IOException {
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+        byte[] data = new byte[10_000];
+        new Random(13).nextBytes(data);
+
+        // 200 bytes in leaves of 64 under a fan-out of 4: four leaves and the root above them
+        byte[] children = new byte[4 * RIPEMD320Digest.DIGEST_LENGTH];
+        for (int i = 0; i < 4; i++) {
+            digest.update((byte) 0x00);
+            digest.update(data, 64 * i, Math.min(64, 200 - 64 * i));
+            digest.digest(children, i * RIPEMD320Digest.DIGEST_LENGTH);
+        }
+        digest.update((byte) 0x01);
+        digest.update(children);
+        Assertions.assertArrayEquals(digest.digest(), new RIPEMD320Tree(64, 4).hash(Arrays.copyOf(data, 200)));
+
+        // even a single leaf gets an interior root, so the result is never the plain digest
+        digest.update((byte) 0x00);
+        byte[] leaf = digest.digest();
+        digest.update((byte) 0x01);
+        digest.update(leaf);
+        Assertions.assertArrayEquals(digest.digest(), new RIPEMD320Tree().hash(new byte[0]));
+
+        // several levels, the same root from an array, a direct buffer and a mapped file
+        RIPEMD320Tree tree = new RIPEMD320Tree(100, 3);
+        byte[] root = tree.hash(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 7);
+        direct.position(7);
+        direct.put(data).position(7);
+        Assertions.assertArrayEquals(root, tree.hash(direct));
+        Assertions.assertEquals(7, direct.position());
+
+        Path file = directory.resolve("data.bin");
+        Files.write(file, data);
+        Assertions.assertArrayEquals(root, tree.hash(file));
+
+        Assertions.assertFalse(Arrays.equals(root, new RIPEMD320Tree(100, 4).hash(data)));
+        Assertions.assertFalse(Arrays.equals(root, new RIPEMD320Tree(128, 3).hash(data)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RIPEMD320Tree(0, 4));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RIPEMD320Tree(64, 1));
+    }
+
+    @Test
+    public void testHmac() throws GeneralSecurityException {
+        Random random = new Random(14);
+        byte[] message = new byte[300];
+        random.nextBytes(message);
+
+        // short key padded with zeros, key of exactly one block, long key hashed first
+        for (int keyLength : new int[]{20, 64, 100}) {
+            byte[] key = new byte[keyLength];
+            random.nextBytes(key);
+            byte[] expected = referenceHmac(key, message);
+
+            RIPEMD320Hmac hmac = new RIPEMD320Hmac(key);
+            Assertions.assertArrayEquals(expected, hmac.mac(message));
+
+            // the same key serves message after message, fed in pieces
+            hmac.update(message, 0, 100);
+            RIPEMD320Hmac copy = hmac.copy();
+            hmac.update(ByteBuffer.wrap(message, 100, 200));
+            Assertions.assertArrayEquals(expected, hmac.doFinal());
+            Assertions.assertArrayEquals(expected, hmac.mac(message));
+            Assertions.assertArrayEquals(referenceHmac(key, Arrays.copyOf(message, 100)), copy.doFinal());
+
+            Assertions.assertTrue(hmac.verify(message, expected));
+            expected[39] ^= 1;
+            Assertions.assertFalse(hmac.verify(message, expected));
+            Assertions.assertFalse(hmac.verify(message, Arrays.copyOf(expected, 20)));
+
+            Mac mac = Mac.getInstance("HmacRIPEMD320", new RIPEMD320Provider());
+            mac.init(new SecretKeySpec(key, "HmacRIPEMD320"));
+            expected[39] ^= 1;
+            Assertions.assertArrayEquals(expected, mac.doFinal(message));
+        }
+    }
+
+    // HMAC spelled out with the plain digest
+    private static byte[] referenceHmac(byte[] key, byte[] message) {
+        RIPEMD320Digest digest = new RIPEMD320Digest();
+        byte[] block = new byte[RIPEMD320Digest.BLOCK_SIZE];
+        if (key.length > block.length) {
+            digest.update(key);
+            key = digest.digest();
+        }
+        System.arraycopy(key, 0, block, 0, key.length);
+
+        byte[] innerPad = new byte[block.length];
+        byte[] outerPad = new byte[block.length];
+        for (int i = 0; i < block.length; i++) {
+            innerPad[i] = (byte) (block[i] ^ 0x36);
+            outerPad[i] = (byte) (block[i] ^ 0x5C);
+        }
+
+        digest.update(innerPad);
+        digest.update(message);
+        byte[] inner = digest.digest();
+        digest.update(outerPad);
+        digest.update(inner);
+        return digest.digest();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
 }